@@ -0,0 +1,33 @@
+package com.itech.itech_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Bounded pool for asynchronous checkouts. When the workers and the queue are
+ * full new checkouts are rejected rather than piling up, so a burst cannot
+ * exhaust the database connection pool.
+ */
+@Configuration
+public class CheckoutExecutorConfig {
+
+    @Value("${checkout.async.pool-size:8}")
+    private int poolSize;
+
+    @Value("${checkout.async.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor checkoutExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkout-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+}
@@ -1,6 +1,7 @@
 package com.itech.itech_backend.config;
 
 import com.itech.itech_backend.filter.JwtFilter;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -31,8 +32,12 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(auth -> auth
+                        // The original request was already authorized; async dispatches (SSE
+                        // checkout events) and error pages run without the JWT filter
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers(
                                 "/auth/**",
+                                "/.well-known/jwks.json",
                                 "/categories/**",
                                 "/products/**",
                                 "/api/products/**",
@@ -81,6 +86,8 @@ public class SecurityConfig {
         configuration.setAllowedOriginPatterns(Arrays.asList("*"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Lets browser clients read the id of a newly started guest cart
+        configuration.setExposedHeaders(Arrays.asList("X-Guest-Cart-Id"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // 1 hour
         
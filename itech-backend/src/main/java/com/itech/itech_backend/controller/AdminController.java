@@ -6,6 +6,15 @@ import com.itech.itech_backend.service.ExcelImportService;
 import com.itech.itech_backend.enums.VendorType;
 import com.itech.itech_backend.model.User;
 import com.itech.itech_backend.service.AdminService;
+import com.itech.itech_backend.service.CartService;
+import com.itech.itech_backend.service.CheckoutJobService;
+import com.itech.itech_backend.service.HotInventoryLedger;
+import com.itech.itech_backend.service.OtpStore;
+import com.itech.itech_backend.service.PrincipalDirectory;
+import com.itech.itech_backend.service.ProductDetailCache;
+import com.itech.itech_backend.service.ProductViewCounter;
+import com.itech.itech_backend.util.JwtKeyRing;
+import com.itech.itech_backend.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
@@ -14,7 +23,9 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/admin")
@@ -25,6 +36,15 @@ public class AdminController {
 
     private final AdminService adminService;
     private final ExcelImportService excelImportService;
+    private final ProductViewCounter productViewCounter;
+    private final ProductDetailCache productDetailCache;
+    private final HotInventoryLedger hotInventoryLedger;
+    private final CheckoutJobService checkoutJobService;
+    private final CartService cartService;
+    private final JwtUtil jwtUtil;
+    private final JwtKeyRing jwtKeyRing;
+    private final PrincipalDirectory principalDirectory;
+    private final OtpStore otpStore;
 
     @GetMapping("/vendors")
     public List<User> getAllVendors() {
@@ -35,6 +55,25 @@ public class AdminController {
     public User updateVendorType(@PathVariable Long userId, @RequestParam VendorType vendorType) {
         return adminService.updateVendorType(userId, vendorType.name());
     }
+
+    /**
+     * In-process buffer and cache statistics
+     */
+    @GetMapping("/metrics")
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("productViews", productViewCounter.getStats());
+        metrics.put("productCache", productDetailCache.getStats());
+        metrics.put("hotInventory", hotInventoryLedger.getStats());
+        metrics.put("asyncCheckout", checkoutJobService.getStats());
+        metrics.put("cartStore", cartService.getStoreStats());
+        metrics.put("jwtCache", jwtUtil.getCacheStats());
+        metrics.put("jwtKeys", jwtKeyRing.getStats());
+        metrics.put("principalDirectory", principalDirectory.getStats());
+        metrics.put("otpStore", otpStore.getStats());
+        return metrics;
+    }
+
     /**
     * Bulk import products from Excel file
     */
@@ -6,8 +6,11 @@ import com.itech.itech_backend.dto.RegisterRequestDto;
 import com.itech.itech_backend.dto.SetPasswordDto;
 import com.itech.itech_backend.dto.VerifyOtpRequestDto;
 import com.itech.itech_backend.service.AuthService;
+import com.itech.itech_backend.service.CartService;
 import com.itech.itech_backend.service.UnifiedAuthService;
+import com.itech.itech_backend.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,10 +21,13 @@ import java.util.Map;
 @RequestMapping("/auth")
 @CrossOrigin
 @RequiredArgsConstructor
+@Slf4j
 public class AuthController {
 
     private final UnifiedAuthService unifiedAuthService;
     private final AuthService authService; // Keep for backward compatibility
+    private final CartService cartService;
+    private final JwtUtil jwtUtil;
 
     // User registration
     @PostMapping("/register")
@@ -48,7 +54,8 @@ public class AuthController {
     }
     
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequest) {
+    public ResponseEntity<?> login(@RequestBody LoginRequestDto loginRequest,
+                                   @RequestHeader(value = CartController.GUEST_CART_HEADER, required = false) String guestCartId) {
         if (loginRequest.getEmailOrPhone() == null || loginRequest.getPassword() == null) {
             return ResponseEntity.badRequest().body("Email/Phone and Password are required");
         }
@@ -56,6 +63,7 @@ public class AuthController {
         // Try direct login first
         JwtResponse directLogin = unifiedAuthService.directLogin(loginRequest);
         if (directLogin != null) {
+            mergeGuestCart(guestCartId, directLogin);
             return ResponseEntity.ok(directLogin);
         }
         
@@ -75,18 +83,21 @@ public class AuthController {
     }
 
     @PostMapping("/verify")
-    public ResponseEntity<?> verifyOtp(@RequestBody VerifyOtpRequestDto dto) {
+    public ResponseEntity<?> verifyOtp(@RequestBody VerifyOtpRequestDto dto,
+                                       @RequestHeader(value = CartController.GUEST_CART_HEADER, required = false) String guestCartId) {
         System.out.println("🔍 OTP Verification Request Received");
         JwtResponse response = unifiedAuthService.verifyOtpAndGenerateToken(dto);
         System.out.println(response);
         if (response == null) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid or Expired OTP!");
         }
+        mergeGuestCart(guestCartId, response);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping("/verify-otp")
-    public ResponseEntity<?> verifyOtpAlternate(@RequestBody VerifyOtpRequestDto dto) {
+    public ResponseEntity<?> verifyOtpAlternate(@RequestBody VerifyOtpRequestDto dto,
+                                                @RequestHeader(value = CartController.GUEST_CART_HEADER, required = false) String guestCartId) {
         System.out.println("🔍 OTP Verification Request Received");
         System.out.println("📱 Contact: " + dto.getEmailOrPhone());
         System.out.println("🔢 OTP: " + dto.getOtp());
@@ -99,9 +110,22 @@ public class AuthController {
         }
         
         System.out.println("✅ OTP Verification Successful");
+        mergeGuestCart(guestCartId, response);
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Revoke the bearer token so it is refused even before it expires
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return ResponseEntity.badRequest().body("Bearer token is required");
+        }
+        jwtUtil.revoke(authHeader.substring(7));
+        return ResponseEntity.ok("Logged out successfully");
+    }
+    
     @PostMapping("/set-password")
     public ResponseEntity<String> setPassword(@RequestBody SetPasswordDto dto) {
         String result = authService.setPassword(dto);
@@ -112,4 +136,19 @@ public class AuthController {
     public ResponseEntity<String> debugUser(@PathVariable String email) {
         return ResponseEntity.ok(authService.debugUser(email));
     }
+
+    /**
+     * Move the cart a buyer built before logging in into their account. A
+     * failed merge is logged and never fails the login.
+     */
+    private void mergeGuestCart(String guestCartId, JwtResponse login) {
+        if (guestCartId == null || login.getUser() == null || !"USER".equals(login.getUser().getRole())) {
+            return;
+        }
+        try {
+            cartService.mergeGuestCart(guestCartId, login.getUser().getId());
+        } catch (Exception e) {
+            log.warn("Failed to merge guest cart into cart of user {}", login.getUser().getId(), e);
+        }
+    }
 }
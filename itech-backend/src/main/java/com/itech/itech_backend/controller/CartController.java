@@ -1,6 +1,7 @@
 package com.itech.itech_backend.controller;
 
 import com.itech.itech_backend.dto.AddToCartDto;
+import com.itech.itech_backend.dto.BulkCartUpdateDto;
 import com.itech.itech_backend.dto.CartDto;
 import com.itech.itech_backend.service.CartService;
 import com.itech.itech_backend.util.JwtTokenUtil;
@@ -11,6 +12,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/cart")
@@ -19,6 +21,8 @@ import jakarta.servlet.http.HttpServletRequest;
 @Slf4j
 public class CartController {
 
+    public static final String GUEST_CART_HEADER = "X-Guest-Cart-Id";
+
     private final CartService cartService;
     private final JwtTokenUtil jwtTokenUtil;
 
@@ -54,6 +58,22 @@ public class CartController {
         }
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> bulkUpdateCart(@RequestBody BulkCartUpdateDto bulkUpdate, HttpServletRequest request) {
+        try {
+            Long userId = jwtTokenUtil.extractUserIdFromRequest(request);
+            if (userId == null) {
+                return ResponseEntity.badRequest().body("Invalid user session");
+            }
+            CartDto cart = cartService.applyBulk(userId, bulkUpdate);
+            return ResponseEntity.ok(cart);
+        } catch (Exception e) {
+            log.error("Error applying bulk cart update", e);
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/item/{cartItemId}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<?> updateCartItem(@PathVariable Long cartItemId, @RequestParam int quantity, HttpServletRequest request) {
@@ -102,4 +122,73 @@ public class CartController {
         }
     }
 
+    // Guest carts, identified by the X-Guest-Cart-Id header. An add without
+    // one, or naming a cart the server does not hold, starts a cart under a
+    // new id and returns it in the same header.
+
+    @GetMapping("/guest")
+    public ResponseEntity<?> getGuestCart(@RequestHeader(value = GUEST_CART_HEADER, required = false) String guestCartId) {
+        if (guestCartId != null && !isValidGuestCartId(guestCartId)) {
+            return ResponseEntity.badRequest().body("Invalid guest cart id");
+        }
+        return ResponseEntity.ok(cartService.getGuestCart(guestCartId));
+    }
+
+    @PostMapping("/guest/add")
+    public ResponseEntity<?> addToGuestCart(@RequestBody AddToCartDto addToCartDto,
+                                            @RequestHeader(value = GUEST_CART_HEADER, required = false) String guestCartId) {
+        try {
+            if (guestCartId != null && !isValidGuestCartId(guestCartId)) {
+                return ResponseEntity.badRequest().body("Invalid guest cart id");
+            }
+            String cartId = guestCartId != null && cartService.hasGuestCart(guestCartId)
+                    ? guestCartId
+                    : UUID.randomUUID().toString();
+            CartDto cart = cartService.addToGuestCart(cartId, addToCartDto);
+            return ResponseEntity.ok().header(GUEST_CART_HEADER, cartId).body(cart);
+        } catch (Exception e) {
+            log.error("Error adding to guest cart", e);
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/guest/item/{productId}")
+    public ResponseEntity<?> updateGuestCartItem(@PathVariable Long productId, @RequestParam int quantity,
+                                                 @RequestHeader(GUEST_CART_HEADER) String guestCartId) {
+        try {
+            if (!isValidGuestCartId(guestCartId)) {
+                return ResponseEntity.badRequest().body("Invalid guest cart id");
+            }
+            return ResponseEntity.ok(cartService.updateGuestCartItem(guestCartId, productId, quantity));
+        } catch (Exception e) {
+            log.error("Error updating guest cart item", e);
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/guest/item/{productId}")
+    public ResponseEntity<?> removeFromGuestCart(@PathVariable Long productId,
+                                                 @RequestHeader(GUEST_CART_HEADER) String guestCartId) {
+        try {
+            if (!isValidGuestCartId(guestCartId)) {
+                return ResponseEntity.badRequest().body("Invalid guest cart id");
+            }
+            return ResponseEntity.ok(cartService.removeFromGuestCart(guestCartId, productId));
+        } catch (Exception e) {
+            log.error("Error removing from guest cart", e);
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Guest cart ids are UUIDs. Only ids the server issued get a cart: an add
+     * naming any other id is given a fresh one, so clients cannot pick store keys
+     */
+    private boolean isValidGuestCartId(String guestCartId) {
+        try {
+            return UUID.fromString(guestCartId).toString().equals(guestCartId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package com.itech.itech_backend.controller;
 
+import com.itech.itech_backend.dto.CursorPageDto;
 import com.itech.itech_backend.model.ChatbotMessage;
 import com.itech.itech_backend.repository.ChatbotMessageRepository;
+import com.itech.itech_backend.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -87,6 +90,26 @@ public class ChatbotAdminController {
         }
     }
 
+    @GetMapping("/conversations/cursor")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CursorPageDto<ChatbotMessage>> getConversationsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        
+        try {
+            int pageSize = CursorPageDto.clampSize(size);
+            CursorCodec.Position position = CursorCodec.decode(cursor);
+            List<ChatbotMessage> rows = chatbotMessageRepository
+                    .findMessagesBefore(position.createdAt(), position.id(), Limit.of(pageSize + 1));
+            
+            return ResponseEntity.ok(CursorPageDto.of(rows, pageSize, ChatbotMessage::getCreatedAt, ChatbotMessage::getId));
+            
+        } catch (Exception e) {
+            log.error("Error fetching conversations by cursor: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/conversation/{sessionId}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<ChatbotMessage>> getConversationBySession(@PathVariable String sessionId) {
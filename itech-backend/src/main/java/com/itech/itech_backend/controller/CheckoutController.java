@@ -2,17 +2,23 @@ package com.itech.itech_backend.controller;
 
 import com.itech.itech_backend.dto.CheckoutDto;
 import com.itech.itech_backend.dto.CartDto;
+import com.itech.itech_backend.dto.CheckoutJobDto;
 import com.itech.itech_backend.model.Order;
 import com.itech.itech_backend.service.CartService;
+import com.itech.itech_backend.service.CheckoutJobService;
 import com.itech.itech_backend.service.OrderService;
 import com.itech.itech_backend.service.PaymentService;
 import com.itech.itech_backend.util.JwtTokenUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.util.Map;
@@ -27,6 +33,7 @@ public class CheckoutController {
     private final CartService cartService;
     private final OrderService orderService;
     private final PaymentService paymentService;
+    private final CheckoutJobService checkoutJobService;
     private final JwtTokenUtil jwtTokenUtil;
 
     /**
@@ -87,6 +94,68 @@ public class CheckoutController {
         }
     }
 
+    /**
+     * Accept a checkout and run it in the background. Returns a checkout id
+     * to poll at /jobs/{checkoutId} or follow at /jobs/{checkoutId}/events.
+     */
+    @PostMapping("/process-async")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> processCheckoutAsync(@RequestBody CheckoutDto checkoutDto, HttpServletRequest request) {
+        try {
+            Long userId = jwtTokenUtil.extractUserIdFromRequest(request);
+            if (userId == null) {
+                return ResponseEntity.badRequest().body("Invalid user session");
+            }
+
+            CheckoutJobDto job = checkoutJobService.submit(userId, checkoutDto);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Checkout is busy, please retry shortly");
+        } catch (Exception e) {
+            log.error("Error accepting checkout", e);
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Poll an asynchronous checkout
+     */
+    @GetMapping("/jobs/{checkoutId}")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<?> getCheckoutJob(@PathVariable String checkoutId, HttpServletRequest request) {
+        try {
+            Long userId = jwtTokenUtil.extractUserIdFromRequest(request);
+            if (userId == null) {
+                return ResponseEntity.badRequest().body("Invalid user session");
+            }
+
+            return ResponseEntity.ok(checkoutJobService.getJob(checkoutId, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Server-sent events for an asynchronous checkout job, one per job state
+     * change until the order has been created or the checkout fails. An online
+     * order is still PENDING payment when the stream ends; its payment is
+     * followed through /verify-payment and the order itself.
+     */
+    @GetMapping(value = "/jobs/{checkoutId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public SseEmitter streamCheckoutJob(@PathVariable String checkoutId, HttpServletRequest request) {
+        // Returned directly rather than in a ResponseEntity so MVC streams it
+        Long userId = jwtTokenUtil.extractUserIdFromRequest(request);
+        if (userId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid user session");
+        }
+        try {
+            return checkoutJobService.subscribe(checkoutId, userId);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
     /**
      * Verify payment and complete order
      */
@@ -0,0 +1,31 @@
+package com.itech.itech_backend.controller;
+
+import com.itech.itech_backend.util.JwtKeyRing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Public keys for verifying tokens signed in the asymmetric JWT mode. Empty
+ * when tokens are signed with the shared HMAC secret.
+ */
+@RestController
+@CrossOrigin
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyRing keyRing;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(keyRing.jwks());
+    }
+}
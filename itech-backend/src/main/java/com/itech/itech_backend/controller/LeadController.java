@@ -1,5 +1,6 @@
 package com.itech.itech_backend.controller;
 
+import com.itech.itech_backend.dto.CursorPageDto;
 import com.itech.itech_backend.model.Lead;
 import com.itech.itech_backend.enums.LeadStatus;
 import com.itech.itech_backend.enums.LeadPriority;
@@ -41,6 +42,18 @@ public class LeadController {
         }
     }
 
+    @GetMapping("/vendor/{vendorId}/cursor")
+    public ResponseEntity<CursorPageDto<Lead>> getLeadsByVendorCursor(
+            @PathVariable Long vendorId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(leadService.getLeadsByVendorCursor(vendorId, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+    }
+
     @GetMapping("/vendor/{vendorId}/status/{status}")
     public ResponseEntity<List<Lead>> getLeadsByVendorAndStatus(
             @PathVariable Long vendorId, 
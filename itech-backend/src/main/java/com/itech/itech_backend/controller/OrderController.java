@@ -1,6 +1,7 @@
 package com.itech.itech_backend.controller;
 
 import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.dto.CursorPageDto;
 import com.itech.itech_backend.model.Order;
 import com.itech.itech_backend.service.OrderService;
 import com.itech.itech_backend.util.JwtTokenUtil;
@@ -101,6 +102,24 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/my-orders/cursor")
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<CursorPageDto<Order>> getUserOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        try {
+            Long userId = jwtTokenUtil.extractUserIdFromRequest(request);
+            if (userId == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(orderService.getUserOrdersByCursor(userId, cursor, size));
+        } catch (Exception e) {
+            log.error("Error getting user orders by cursor", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{orderId}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<Order> getOrderById(@PathVariable Long orderId, HttpServletRequest request) {
@@ -199,4 +218,22 @@ public class OrderController {
         }
     }
 
+    @GetMapping("/vendor/my-orders/cursor")
+    @PreAuthorize("hasRole('VENDOR')")
+    public ResponseEntity<CursorPageDto<Order>> getVendorOrdersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            HttpServletRequest request) {
+        try {
+            Long vendorId = jwtTokenUtil.extractUserIdFromRequest(request);
+            if (vendorId == null) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(orderService.getVendorOrdersByCursor(vendorId, cursor, size));
+        } catch (Exception e) {
+            log.error("Error getting vendor orders by cursor", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
 }
@@ -1,6 +1,10 @@
 package com.itech.itech_backend.controller;
 
+import com.itech.itech_backend.dto.CursorPageDto;
+import com.itech.itech_backend.dto.FacetedProductsDto;
+import com.itech.itech_backend.dto.ProductDetailDto;
 import com.itech.itech_backend.dto.ProductDto;
+import com.itech.itech_backend.dto.ProductSummaryDto;
 import com.itech.itech_backend.model.Product;
 import com.itech.itech_backend.service.ProductService;
 import com.itech.itech_backend.util.JwtTokenUtil;
@@ -31,7 +35,7 @@ public class ProductController {
 
     // Public endpoints
     @GetMapping
-    public ResponseEntity<Page<Product>> getAllProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(required = false) String category,
@@ -42,7 +46,7 @@ public class ProductController {
             @RequestParam(defaultValue = "desc") String sortDir) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.getProducts(pageable, category, search, minPrice, maxPrice, sortBy, sortDir);
+            Page<ProductSummaryDto> products = productService.getProducts(pageable, category, search, minPrice, maxPrice, sortBy, sortDir);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting products", e);
@@ -50,10 +54,42 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedProductsDto> getFacetedProducts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) Boolean freeShipping,
+            @RequestParam(required = false) Integer priceBucket,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+        try {
+            Pageable pageable = PageRequest.of(page, size);
+            return ResponseEntity.ok(productService.getFacetedProducts(
+                    pageable, category, brand, freeShipping, priceBucket, sortBy, sortDir));
+        } catch (Exception e) {
+            log.error("Error getting faceted products", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDto<ProductSummaryDto>> getProductsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size) {
+        try {
+            return ResponseEntity.ok(productService.getProductsByCursor(cursor, size));
+        } catch (Exception e) {
+            log.error("Error getting products by cursor", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/{productId}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long productId) {
+    public ResponseEntity<ProductDetailDto> getProductById(@PathVariable Long productId) {
         try {
-            Product product = productService.getProductById(productId);
+            ProductDetailDto product = productService.getProductDetail(productId);
             // Increment view count
             productService.incrementViewCount(productId);
             return ResponseEntity.ok(product);
@@ -64,13 +100,13 @@ public class ProductController {
     }
 
     @GetMapping("/search")
-    public ResponseEntity<Page<Product>> searchProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> searchProducts(
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.searchProducts(query, pageable);
+            Page<ProductSummaryDto> products = productService.searchProducts(query, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error searching products", e);
@@ -78,14 +114,26 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggestProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        try {
+            return ResponseEntity.ok(productService.suggestProducts(q, limit));
+        } catch (Exception e) {
+            log.error("Error getting product suggestions", e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<Page<Product>> getProductsByCategory(
+    public ResponseEntity<Page<ProductSummaryDto>> getProductsByCategory(
             @PathVariable Long categoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.getProductsByCategory(categoryId, pageable);
+            Page<ProductSummaryDto> products = productService.getProductsByCategory(categoryId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting products by category", e);
@@ -94,13 +142,13 @@ public class ProductController {
     }
 
     @GetMapping("/vendor/{vendorId}")
-    public ResponseEntity<Page<Product>> getProductsByVendor(
+    public ResponseEntity<Page<ProductSummaryDto>> getProductsByVendor(
             @PathVariable Long vendorId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.getProductsByVendor(vendorId, pageable);
+            Page<ProductSummaryDto> products = productService.getProductsByVendor(vendorId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting products by vendor", e);
@@ -109,11 +157,12 @@ public class ProductController {
     }
 
     @GetMapping("/featured")
-    public ResponseEntity<List<Product>> getFeaturedProducts(
+    public ResponseEntity<byte[]> getFeaturedProducts(
             @RequestParam(defaultValue = "8") int limit) {
         try {
-            List<Product> products = productService.getFeaturedProducts(limit);
-            return ResponseEntity.ok(products);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(productService.getFeaturedProductsJson(limit));
         } catch (Exception e) {
             log.error("Error getting featured products", e);
             return ResponseEntity.badRequest().build();
@@ -130,7 +179,7 @@ public class ProductController {
                 return ResponseEntity.badRequest().body("Invalid vendor session");
             }
             Product product = productService.addProduct(vendorId, dto);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok(ProductDetailDto.from(product));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         } catch (Exception e) {
@@ -168,7 +217,7 @@ public class ProductController {
                 return ResponseEntity.badRequest().body("Invalid vendor session");
             }
             Product product = productService.updateProduct(productId, vendorId, dto);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok(ProductDetailDto.from(product));
         } catch (Exception e) {
             log.error("Error updating product", e);
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
@@ -193,7 +242,7 @@ public class ProductController {
 
     @GetMapping("/vendor/my-products")
     @PreAuthorize("hasRole('VENDOR')")
-    public ResponseEntity<Page<Product>> getVendorProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> getVendorProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             HttpServletRequest request) {
@@ -203,7 +252,7 @@ public class ProductController {
                 return ResponseEntity.badRequest().build();
             }
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.getProductsByVendor(vendorId, pageable);
+            Page<ProductSummaryDto> products = productService.getProductsByVendor(vendorId, pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting vendor products", e);
@@ -223,7 +272,7 @@ public class ProductController {
                 return ResponseEntity.badRequest().body("Invalid vendor session");
             }
             Product product = productService.updateProductStatus(productId, vendorId, isActive);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok(ProductDetailDto.from(product));
         } catch (Exception e) {
             log.error("Error updating product status", e);
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
@@ -236,7 +285,7 @@ public class ProductController {
     public ResponseEntity<?> approveProduct(@PathVariable Long productId) {
         try {
             Product product = productService.approveProduct(productId);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok(ProductDetailDto.from(product));
         } catch (Exception e) {
             log.error("Error approving product", e);
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
@@ -248,7 +297,7 @@ public class ProductController {
     public ResponseEntity<?> featureProduct(@PathVariable Long productId, @RequestParam boolean featured) {
         try {
             Product product = productService.setFeaturedStatus(productId, featured);
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok(ProductDetailDto.from(product));
         } catch (Exception e) {
             log.error("Error setting featured status", e);
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
@@ -257,12 +306,12 @@ public class ProductController {
 
     @GetMapping("/pending-approval")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<Product>> getPendingProducts(
+    public ResponseEntity<Page<ProductSummaryDto>> getPendingProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.getPendingApprovalProducts(pageable);
+            Page<ProductSummaryDto> products = productService.getPendingApprovalProducts(pageable);
             return ResponseEntity.ok(products);
         } catch (Exception e) {
             log.error("Error getting pending products", e);
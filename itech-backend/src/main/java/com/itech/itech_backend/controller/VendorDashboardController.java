@@ -263,6 +263,7 @@ public class VendorDashboardController {
                         .build();
                 productImageRepository.save(productImage);
             }
+            productService.productImagesChanged(productId);
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Images uploaded successfully");
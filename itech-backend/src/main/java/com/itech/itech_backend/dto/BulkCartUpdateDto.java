@@ -0,0 +1,30 @@
+package com.itech.itech_backend.dto;
+
+import com.itech.itech_backend.enums.CartLineOperation;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Many cart line changes applied together, e.g. from an RFQ sheet. Lines are
+ * applied in order, so ADD then SET on the same product ends at the SET.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCartUpdateDto {
+    private List<LineDto> lines;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineDto {
+        private Long productId;
+        // ADD when omitted
+        private CartLineOperation operation;
+        // Ignored for REMOVE
+        private int quantity;
+    }
+}
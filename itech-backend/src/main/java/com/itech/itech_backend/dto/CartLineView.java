@@ -0,0 +1,19 @@
+package com.itech.itech_backend.dto;
+
+/**
+ * One cart line with what the cart view needs from its product, read in a
+ * single query. Item fields are null for the one row of an empty cart.
+ */
+public record CartLineView(
+        Long cartId,
+        Long itemId,
+        Long productId,
+        String productName,
+        Double price,
+        Integer quantity,
+        Long vendorId,
+        String vendorName,
+        Integer stock,
+        String firstImageUrl,
+        String imageUrls) {
+}
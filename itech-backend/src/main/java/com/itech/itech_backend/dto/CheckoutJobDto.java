@@ -0,0 +1,28 @@
+package com.itech.itech_backend.dto;
+
+import com.itech.itech_backend.enums.CheckoutJobStatus;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * State of an asynchronous checkout, as returned by polling and sent on the
+ * event stream
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutJobDto {
+    private String checkoutId;
+    private CheckoutJobStatus status;
+    private Long orderId;
+    private String orderNumber;
+    private String orderStatus;
+    // createOrder response (payment details) once the checkout completed
+    private Map<String, Object> result;
+    private String error;
+    private LocalDateTime submittedAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.itech.itech_backend.dto;
+
+import com.itech.itech_backend.util.CursorCodec;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasNext;
+    private int size;
+
+    /**
+     * Keep requested page sizes between 1 and MAX_PAGE_SIZE
+     */
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Build a page from a keyset query that fetched one row more than the page
+     * size; the extra row only signals that another page exists.
+     */
+    public static <T> CursorPageDto<T> of(List<T> rows, int size,
+                                          Function<T, LocalDateTime> createdAt, Function<T, Long> id) {
+        boolean hasNext = rows.size() > size;
+        List<T> items = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            T last = items.get(items.size() - 1);
+            nextCursor = CursorCodec.encode(createdAt.apply(last), id.apply(last));
+        }
+        return CursorPageDto.<T>builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .size(items.size())
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.itech.itech_backend.dto;
+
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductsDto {
+    private Page<ProductSummaryDto> products;
+    private Map<String, Long> categories;
+    private Map<String, Long> brands;
+    // Bucket label ("1000-5000") -> count; the bucket index is its position
+    private Map<String, Long> priceBuckets;
+    private Map<String, Long> freeShipping;
+}
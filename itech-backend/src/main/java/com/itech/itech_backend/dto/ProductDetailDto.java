@@ -0,0 +1,112 @@
+package com.itech.itech_backend.dto;
+
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.model.ProductImage;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Product detail page view. Built from a product loaded with its category,
+ * vendor and images, and safe to cache and serialize outside a session.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDetailDto {
+    private Long id;
+    private String name;
+    private String description;
+    private Double price;
+    private Double originalPrice;
+    private double discountPercentage;
+    private String brand;
+    private String model;
+    private String sku;
+    private int stock;
+    private boolean inStock;
+    private int minOrderQuantity;
+    private String unit;
+    private List<String> imageUrls;
+    private String specifications;
+    private String tags;
+    private String metaTitle;
+    private String metaDescription;
+    private boolean active;
+    private boolean approved;
+    private boolean featured;
+    private Double gstRate;
+    private int viewCount;
+    private int orderCount;
+    private Double weight;
+    private Double length;
+    private Double width;
+    private Double height;
+    private boolean freeShipping;
+    private Double shippingCharge;
+    private Long categoryId;
+    private String categoryName;
+    private Long vendorId;
+    private String vendorName;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static ProductDetailDto from(Product product) {
+        List<String> imageUrls = new ArrayList<>();
+        if (product.getImages() != null) {
+            for (ProductImage image : product.getImages()) {
+                imageUrls.add(image.getImageUrl());
+            }
+        }
+        if (product.getImageUrls() != null && !product.getImageUrls().isEmpty()) {
+            for (String url : product.getImageUrls().split(",")) {
+                if (!url.isBlank() && !imageUrls.contains(url.trim())) {
+                    imageUrls.add(url.trim());
+                }
+            }
+        }
+        return ProductDetailDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .originalPrice(product.getOriginalPrice())
+                .discountPercentage(product.getDiscountPercentage())
+                .brand(product.getBrand())
+                .model(product.getModel())
+                .sku(product.getSku())
+                .stock(product.getStock())
+                .inStock(product.isInStock())
+                .minOrderQuantity(product.getMinOrderQuantity())
+                .unit(product.getUnit())
+                .imageUrls(imageUrls)
+                .specifications(product.getSpecifications())
+                .tags(product.getTags())
+                .metaTitle(product.getMetaTitle())
+                .metaDescription(product.getMetaDescription())
+                .active(product.isActive())
+                .approved(product.isApproved())
+                .featured(product.isFeatured())
+                .gstRate(product.getGstRate())
+                .viewCount(product.getViewCount())
+                .orderCount(product.getOrderCount())
+                .weight(product.getWeight())
+                .length(product.getLength())
+                .width(product.getWidth())
+                .height(product.getHeight())
+                .freeShipping(product.isFreeShipping())
+                .shippingCharge(product.getShippingCharge())
+                .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                .categoryName(product.getCategory() != null ? product.getCategory().getName() : null)
+                .vendorId(product.getVendor() != null ? product.getVendor().getId() : null)
+                .vendorName(product.getVendor() != null
+                        ? (product.getVendor().getBusinessName() != null ? product.getVendor().getBusinessName() : product.getVendor().getName())
+                        : null)
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.itech.itech_backend.dto;
+
+import com.itech.itech_backend.model.Product;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Card-sized view of a product for listings, without the vendor account or lazy collections
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDto {
+    private Long id;
+    private String name;
+    private Double price;
+    private Double originalPrice;
+    private String brand;
+    private String imageUrl;
+    private int stock;
+    private String unit;
+    private boolean freeShipping;
+    private boolean featured;
+    private int viewCount;
+    private int orderCount;
+    private Long categoryId;
+    private String categoryName;
+    private Long vendorId;
+    private String vendorName;
+    private LocalDateTime createdAt;
+
+    public static ProductSummaryDto from(Product product) {
+        String imageUrl = null;
+        if (product.getImageUrls() != null && !product.getImageUrls().isEmpty()) {
+            imageUrl = product.getImageUrls().split(",")[0].trim();
+        }
+        return ProductSummaryDto.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .price(product.getPrice())
+                .originalPrice(product.getOriginalPrice())
+                .brand(product.getBrand())
+                .imageUrl(imageUrl)
+                .stock(product.getStock())
+                .unit(product.getUnit())
+                .freeShipping(product.isFreeShipping())
+                .featured(product.isFeatured())
+                .viewCount(product.getViewCount())
+                .orderCount(product.getOrderCount())
+                .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                .categoryName(product.getCategory() != null ? product.getCategory().getName() : null)
+                .vendorId(product.getVendor() != null ? product.getVendor().getId() : null)
+                .vendorName(product.getVendor() != null
+                        ? (product.getVendor().getBusinessName() != null ? product.getVendor().getBusinessName() : product.getVendor().getName())
+                        : null)
+                .createdAt(product.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,7 @@
+package com.itech.itech_backend.enums;
+
+public enum CartLineOperation {
+    ADD,
+    SET,
+    REMOVE
+}
@@ -0,0 +1,12 @@
+package com.itech.itech_backend.enums;
+
+public enum CheckoutJobStatus {
+    QUEUED,
+    PROCESSING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,9 @@
+package com.itech.itech_backend.enums;
+
+public enum OtpVerifyResult {
+    VERIFIED,
+    MISMATCH,
+    EXPIRED,
+    NOT_FOUND,
+    TOO_MANY_ATTEMPTS
+}
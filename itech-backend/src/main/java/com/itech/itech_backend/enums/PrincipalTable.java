@@ -0,0 +1,11 @@
+package com.itech.itech_backend.enums;
+
+/**
+ * Table an account lives in. Order is lookup precedence when the same
+ * email or phone exists in more than one table.
+ */
+public enum PrincipalTable {
+    USER,
+    VENDOR,
+    ADMIN
+}
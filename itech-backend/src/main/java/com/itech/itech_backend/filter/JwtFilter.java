@@ -2,6 +2,8 @@ package com.itech.itech_backend.filter;
 
 import com.itech.itech_backend.service.UserDetailsServiceImpl;
 import com.itech.itech_backend.util.JwtUtil;
+import com.itech.itech_backend.util.VerifiedJwt;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,31 +32,26 @@ public class JwtFilter extends OncePerRequestFilter {
                                     FilterChain chain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String jwtToken = null;
 
+        // Verify once; later code reads the claims from the request attribute
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
             try {
-                username = jwtUtil.extractUsername(jwtToken);
-            } catch (Exception e) {
+                VerifiedJwt jwt = jwtUtil.verify(authHeader.substring(7));
+                request.setAttribute(VerifiedJwt.REQUEST_ATTRIBUTE, jwt);
+                
+                if (jwt.subject() != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(
+                                    jwt.subject(), null, List.of(new SimpleGrantedAuthority("ROLE_" + jwt.role())));
+
+                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
+            } catch (JwtException | IllegalArgumentException e) {
                 logger.error("Invalid JWT Token");
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(jwtToken)) {
-                String role = jwtUtil.extractRole(jwtToken); // ✅ extract role from token
-                UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(
-                                username, null, List.of(new SimpleGrantedAuthority("ROLE_" + role)
-));
-
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
-        }
-
         chain.doFilter(request, response);
     }
 }
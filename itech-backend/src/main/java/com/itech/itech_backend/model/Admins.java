@@ -1,11 +1,13 @@
 package com.itech.itech_backend.model;
 
+import com.itech.itech_backend.service.PrincipalChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(PrincipalChangeListener.class)
 @Table(name = "admins")
 @Getter
 @Setter
@@ -6,6 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_chatbot_message_session_created", columnList = "session_id, created_at"),
+        // Admin conversation list, keyset paged newest first
+        @Index(name = "idx_chatbot_message_created", columnList = "created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
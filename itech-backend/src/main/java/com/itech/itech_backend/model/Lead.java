@@ -8,7 +8,10 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "leads")
+@Table(name = "leads", indexes = {
+        @Index(name = "idx_leads_vendor_status", columnList = "vendor_id, status"),
+        @Index(name = "idx_leads_vendor_inquiry", columnList = "vendor_id, inquiry_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -8,7 +8,13 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = {
+        // Payment callbacks look orders up by Razorpay order ID; COD orders leave it null
+        @UniqueConstraint(name = "uk_orders_razorpay_order_id", columnNames = "razorpay_order_id")
+}, indexes = {
+        // A user's order history and its keyset paging, newest first
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
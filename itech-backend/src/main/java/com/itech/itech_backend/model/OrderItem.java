@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "order_item")
+@Table(name = "order_item", indexes = {
+        // Vendor order lookups join or EXISTS from the vendor to the order
+        @Index(name = "idx_order_item_vendor_order", columnList = "vendor_id, order_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
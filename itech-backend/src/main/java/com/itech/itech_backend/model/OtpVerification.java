@@ -6,6 +6,8 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
+// One row per contact: the failed-attempt count outlives each OTP written into it
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_otp_verification_email_or_phone", columnNames = "email_or_phone"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,4 +22,14 @@ public class OtpVerification {
     private String emailOrPhone;
     private String otp;
     private LocalDateTime expiryTime;
+
+    // When this OTP was sent, for the resend throttle
+    private LocalDateTime sentAt;
+
+    // Guesses for this contact since attemptsSince; kept when a new OTP replaces this one
+    @Builder.Default
+    private int attempts = 0;
+
+    // Start of the lockout window the attempts count in; null before the first guess
+    private LocalDateTime attemptsSince;
 }
@@ -8,6 +8,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        // Listing pages and keyset paging: listed products, newest first
+        @Index(name = "idx_product_listed_created", columnList = "is_approved, is_active, created_at, id"),
+        @Index(name = "idx_product_category_listed", columnList = "category_id, is_approved, is_active, created_at"),
+        @Index(name = "idx_product_vendor_created", columnList = "vendor_id, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
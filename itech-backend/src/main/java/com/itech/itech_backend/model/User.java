@@ -1,12 +1,14 @@
 package com.itech.itech_backend.model;
 
 import com.itech.itech_backend.enums.VendorType;
+import com.itech.itech_backend.service.PrincipalChangeListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(PrincipalChangeListener.class)
 @Table(name = "user")
 @Getter
 @Setter
@@ -4,8 +4,12 @@ import com.itech.itech_backend.model.Cart;
 import com.itech.itech_backend.model.CartItem;
 import com.itech.itech_backend.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,7 +24,15 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     
-    void deleteByCartId(Long cartId);
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.vendor " +
+           "WHERE ci.cart.id = :cartId AND p.id IN :productIds")
+    List<CartItem> findByCartIdAndProductIdIn(@Param("cartId") Long cartId,
+                                              @Param("productIds") Collection<Long> productIds);
+    
+    // One DELETE statement rather than loading and removing each line
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId")
+    void deleteByCartId(@Param("cartId") Long cartId);
     
     void deleteByCartIdAndProductId(Long cartId, Long productId);
     
@@ -1,10 +1,14 @@
 package com.itech.itech_backend.repository;
 
+import com.itech.itech_backend.dto.CartLineView;
 import com.itech.itech_backend.model.Cart;
 import com.itech.itech_backend.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,6 +18,20 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     
     Optional<Cart> findByUserId(Long userId);
     
+    // Cart with its lines, their products and the products' vendors and categories in one query
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product p " +
+           "LEFT JOIN FETCH p.vendor LEFT JOIN FETCH p.category WHERE c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+    
+    // Cart view rows: lines, product and vendor fields and the product's first image, in one query
+    @Query("SELECT new com.itech.itech_backend.dto.CartLineView(c.id, i.id, p.id, p.name, i.price, i.quantity, " +
+           "v.id, v.name, p.stock, " +
+           "(SELECT pi.imageUrl FROM ProductImage pi WHERE pi.id = " +
+           "(SELECT MIN(pi2.id) FROM ProductImage pi2 WHERE pi2.product = p)), p.imageUrls) " +
+           "FROM Cart c LEFT JOIN c.items i LEFT JOIN i.product p LEFT JOIN p.vendor v " +
+           "WHERE c.user.id = :userId ORDER BY i.id")
+    List<CartLineView> findCartLines(@Param("userId") Long userId);
+    
     boolean existsByUserId(Long userId);
     
     void deleteByUserId(Long userId);
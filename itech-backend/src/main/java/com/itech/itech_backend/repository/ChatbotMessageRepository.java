@@ -1,6 +1,7 @@
 package com.itech.itech_backend.repository;
 
 import com.itech.itech_backend.model.ChatbotMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,4 +28,10 @@ public interface ChatbotMessageRepository extends JpaRepository<ChatbotMessage,
     
     // Count messages by session
     long countBySessionId(String sessionId);
+    
+    // Keyset page of messages, newest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT cm FROM ChatbotMessage cm " +
+           "WHERE cm.createdAt < :createdAt OR (cm.createdAt = :createdAt AND cm.id < :id) " +
+           "ORDER BY cm.createdAt DESC, cm.id DESC")
+    List<ChatbotMessage> findMessagesBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
 }
@@ -4,6 +4,7 @@ import com.itech.itech_backend.model.Lead;
 import com.itech.itech_backend.model.User;
 import com.itech.itech_backend.enums.LeadStatus;
 import com.itech.itech_backend.enums.LeadPriority;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -43,4 +44,11 @@ public interface LeadRepository extends JpaRepository<Lead, Long> {
     
     // Search leads by customer name containing
     List<Lead> findByVendorAndCustomerNameContainingIgnoreCase(User vendor, String customerName);
+    
+    // Keyset page of a vendor's leads, newest inquiry first, strictly after the (inquiryDate, id) cursor
+    @Query("SELECT l FROM Lead l WHERE l.vendor.id = :vendorId " +
+           "AND (l.inquiryDate < :inquiryDate OR (l.inquiryDate = :inquiryDate AND l.id < :id)) " +
+           "ORDER BY l.inquiryDate DESC, l.id DESC")
+    List<Lead> findVendorLeadsBefore(@Param("vendorId") Long vendorId, @Param("inquiryDate") LocalDateTime inquiryDate,
+                                     @Param("id") Long id, Limit limit);
 }
@@ -2,9 +2,11 @@ package com.itech.itech_backend.repository;
 
 import com.itech.itech_backend.model.Order;
 import com.itech.itech_backend.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +20,38 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     Optional<Order> findByOrderNumber(String orderNumber);
     
+    Optional<Order> findByRazorpayOrderId(String razorpayOrderId);
+    
+    // Marks the order paid only if it is not already; returns 0 for a repeated callback
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.paymentStatus = com.itech.itech_backend.model.Order.PaymentStatus.PAID, " +
+           "o.status = com.itech.itech_backend.model.Order.OrderStatus.CONFIRMED, " +
+           "o.razorpayPaymentId = :paymentId, o.paymentTransactionId = :paymentId, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.paymentStatus <> com.itech.itech_backend.model.Order.PaymentStatus.PAID")
+    int markPaid(@Param("id") Long id, @Param("paymentId") String paymentId, @Param("now") LocalDateTime now);
+    
+    // Links the gateway order to a pending checkout; returns 0 if the order was cancelled meanwhile
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.razorpayOrderId = :razorpayOrderId, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.status = com.itech.itech_backend.model.Order.OrderStatus.PENDING " +
+           "AND o.razorpayOrderId IS NULL")
+    int attachRazorpayOrder(@Param("id") Long id, @Param("razorpayOrderId") String razorpayOrderId,
+                            @Param("now") LocalDateTime now);
+    
+    // Cancels a checkout whose payment was never set up; returns 0 if it was already paid or cancelled
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = com.itech.itech_backend.model.Order.OrderStatus.CANCELLED, " +
+           "o.paymentStatus = com.itech.itech_backend.model.Order.PaymentStatus.FAILED, o.updatedAt = :now " +
+           "WHERE o.id = :id AND o.status = com.itech.itech_backend.model.Order.OrderStatus.PENDING " +
+           "AND o.paymentStatus = com.itech.itech_backend.model.Order.PaymentStatus.PENDING")
+    int cancelUnpaid(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    // Online checkouts whose Razorpay order was never linked
+    @Query("SELECT o.id FROM Order o WHERE o.status = com.itech.itech_backend.model.Order.OrderStatus.PENDING " +
+           "AND o.paymentStatus = com.itech.itech_backend.model.Order.PaymentStatus.PENDING " +
+           "AND o.razorpayOrderId IS NULL AND o.createdAt < :cutoff")
+    List<Long> findStalePendingCheckoutIds(@Param("cutoff") LocalDateTime cutoff);
+    
     List<Order> findByUser(User user);
     
     List<Order> findByUserId(Long userId);
@@ -50,4 +84,17 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     
     @Query("SELECT DISTINCT o FROM Order o JOIN o.items oi WHERE oi.vendor.id = :vendorId ORDER BY o.createdAt DESC")
     Page<Order> findOrdersByVendorId(@Param("vendorId") Long vendorId, Pageable pageable);
+    
+    // Keyset (cursor) pagination, newest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT o FROM Order o WHERE o.user.id = :userId " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findUserOrdersBefore(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE EXISTS (SELECT 1 FROM OrderItem oi WHERE oi.order = o AND oi.vendor.id = :vendorId) " +
+           "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findVendorOrdersBefore(@Param("vendorId") Long vendorId, @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id, Limit limit);
 }
@@ -1,12 +1,15 @@
 package com.itech.itech_backend.repository;
 
 import com.itech.itech_backend.model.OtpVerification;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface OtpVerificationRepository extends JpaRepository<OtpVerification, Long> {
@@ -14,8 +17,41 @@ public interface OtpVerificationRepository extends JpaRepository<OtpVerification
     @Query("SELECT o FROM OtpVerification o WHERE o.emailOrPhone = :emailOrPhone")
     Optional<OtpVerification> findByEmailOrPhone(@Param("emailOrPhone") String emailOrPhone);
 
+    // Serializes concurrent sends to one contact; the row must exist, see insertIfAbsent
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM OtpVerification o WHERE o.emailOrPhone = :emailOrPhone")
+    Optional<OtpVerification> findForUpdate(@Param("emailOrPhone") String emailOrPhone);
+
+    // An empty row for the contact unless it already has one; never fails on the unique key
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO otp_verification (email_or_phone, attempts) VALUES (:emailOrPhone, 0) " +
+                   "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    void insertIfAbsent(@Param("emailOrPhone") String emailOrPhone);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM OtpVerification o WHERE o.emailOrPhone = :emailOrPhone")
     void deleteByEmailOrPhone(@Param("emailOrPhone") String emailOrPhone);
+
+    /**
+     * Count a guess unless the limit is already reached within the window; a
+     * window that started before windowStart is over and starts again at now.
+     * 0 means no guesses are left.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OtpVerification o SET " +
+           "o.attempts = CASE WHEN o.attemptsSince IS NULL OR o.attemptsSince < :windowStart THEN 1 ELSE o.attempts + 1 END, " +
+           "o.attemptsSince = CASE WHEN o.attemptsSince IS NULL OR o.attemptsSince < :windowStart THEN :now ELSE o.attemptsSince END " +
+           "WHERE o.id = :id AND (o.attemptsSince IS NULL OR o.attemptsSince < :windowStart OR o.attempts < :maxAttempts)")
+    int recordAttempt(@Param("id") Long id, @Param("maxAttempts") int maxAttempts,
+                      @Param("windowStart") LocalDateTime windowStart, @Param("now") LocalDateTime now);
+
+    // Rows past both cutoffs hold neither a live throttle nor a live lockout
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OtpVerification o WHERE o.expiryTime < :cutoff " +
+           "AND (o.attemptsSince IS NULL OR o.attemptsSince < :windowStart)")
+    int deleteExpiredBefore(@Param("cutoff") LocalDateTime cutoff, @Param("windowStart") LocalDateTime windowStart);
 }
@@ -2,10 +2,86 @@ package com.itech.itech_backend.repository;
 
 import com.itech.itech_backend.model.Product;
 import com.itech.itech_backend.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    // Listed products matching the optional facet filters; a null parameter (or false) means no filter
+    String FACET_FILTER = "FROM Product p LEFT JOIN p.category c " +
+            "WHERE p.isApproved = true AND p.isActive = true " +
+            "AND (:category IS NULL OR LOWER(c.name) = :category) " +
+            "AND (:brand IS NULL OR LOWER(TRIM(p.brand)) = :brand) " +
+            "AND (:freeShippingOnly = false OR p.freeShipping = true) " +
+            "AND (:minPrice IS NULL OR p.price >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.price < :maxPrice) ";
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByVendor(User vendor);
+
+    // Keyset page of listed products, newest first, strictly after the (createdAt, id) cursor
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.vendor " +
+           "WHERE p.isApproved = true AND p.isActive = true " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Product> findListedBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.vendor " +
+           "LEFT JOIN FETCH p.images WHERE p.id = :id")
+    Optional<Product> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.vendor WHERE p.id IN :ids")
+    List<Product> findAllWithVendorByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.vendor " +
+           "WHERE p.isApproved = true AND p.isActive = true AND p.isFeatured = true " +
+           "ORDER BY p.id")
+    List<Product> findFeatured(Limit limit);
+
+    /**
+     * Stream every approved, active product in id order, one page at a time,
+     * for building the in-memory product indexes
+     */
+    default void forEachListed(int batchSize, Consumer<Product> consumer) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.isListed(),
+                ProductSpecifications.fetchAssociations());
+        int pageNumber = 0;
+        Page<Product> page;
+        do {
+            page = findAll(spec, PageRequest.of(pageNumber++, batchSize, Sort.by("id")));
+            page.forEach(consumer);
+        } while (page.hasNext());
+    }
+
+    // Database versions of the in-memory facet counts, used until the facet index is ready
+
+    @Query("SELECT c.name, COUNT(p) " + FACET_FILTER + "AND c.name IS NOT NULL GROUP BY c.name ORDER BY COUNT(p) DESC")
+    List<Object[]> countFacetCategories(@Param("category") String category, @Param("brand") String brand,
+                                        @Param("freeShippingOnly") boolean freeShippingOnly,
+                                        @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice);
+
+    @Query("SELECT TRIM(p.brand), COUNT(p) " + FACET_FILTER + "AND p.brand IS NOT NULL AND TRIM(p.brand) <> '' " +
+           "GROUP BY TRIM(p.brand) ORDER BY COUNT(p) DESC")
+    List<Object[]> countFacetBrands(@Param("category") String category, @Param("brand") String brand,
+                                    @Param("freeShippingOnly") boolean freeShippingOnly,
+                                    @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice);
+
+    // Matching products and how many of them ship free
+    @Query("SELECT COUNT(p), COALESCE(SUM(CASE WHEN p.freeShipping = true THEN 1 ELSE 0 END), 0) " + FACET_FILTER)
+    List<Object[]> countFacetMatches(@Param("category") String category, @Param("brand") String brand,
+                                     @Param("freeShippingOnly") boolean freeShippingOnly,
+                                     @Param("minPrice") Double minPrice, @Param("maxPrice") Double maxPrice);
 }
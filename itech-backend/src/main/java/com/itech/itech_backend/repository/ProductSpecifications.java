@@ -0,0 +1,125 @@
+package com.itech.itech_backend.repository;
+
+import com.itech.itech_backend.model.Product;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+
+/**
+ * Reusable criteria for product listing queries, so filtering, paging and
+ * counting run in the database instead of over findAll().
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Only products that are approved by an admin and active
+     */
+    public static Specification<Product> isListed() {
+        return (root, query, cb) -> cb.and(
+                cb.isTrue(root.get("isApproved")),
+                cb.isTrue(root.get("isActive")));
+    }
+
+    /**
+     * Only products still waiting for admin approval
+     */
+    public static Specification<Product> isPendingApproval() {
+        return (root, query, cb) -> cb.isFalse(root.get("isApproved"));
+    }
+
+    public static Specification<Product> hasIdIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    public static Specification<Product> hasCategoryName(String categoryName) {
+        if (categoryName == null || categoryName.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(
+                cb.lower(root.join("category", JoinType.INNER).get("name")),
+                categoryName.toLowerCase());
+    }
+
+    public static Specification<Product> hasCategoryId(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+
+    public static Specification<Product> hasVendorId(Long vendorId) {
+        if (vendorId == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("vendor").get("id"), vendorId);
+    }
+
+    public static Specification<Product> hasBrand(String brand) {
+        if (brand == null || brand.isEmpty()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(cb.lower(cb.trim(root.get("brand"))), brand.trim().toLowerCase());
+    }
+
+    public static Specification<Product> offersFreeShipping(Boolean freeShipping) {
+        if (!Boolean.TRUE.equals(freeShipping)) {
+            return null;
+        }
+        return (root, query, cb) -> cb.isTrue(root.get("freeShipping"));
+    }
+
+    /**
+     * Case-insensitive match on name or description
+     */
+    public static Specification<Product> matchesText(String search) {
+        if (search == null || search.isEmpty()) {
+            return null;
+        }
+        String pattern = "%" + search.toLowerCase() + "%";
+        return (root, query, cb) -> cb.or(
+                cb.like(cb.lower(root.get("name")), pattern),
+                cb.like(cb.lower(root.get("description")), pattern));
+    }
+
+    public static Specification<Product> priceBetween(Double minPrice, Double maxPrice) {
+        if (minPrice == null && maxPrice == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minPrice != null && maxPrice != null) {
+                return cb.between(root.get("price"), minPrice, maxPrice);
+            }
+            return minPrice != null
+                    ? cb.greaterThanOrEqualTo(root.get("price"), minPrice)
+                    : cb.lessThanOrEqualTo(root.get("price"), maxPrice);
+        };
+    }
+
+    /**
+     * Price in [minPrice, maxPrice), matching the facet price buckets; a null maxPrice is open-ended
+     */
+    public static Specification<Product> priceInBucket(Double minPrice, Double maxPrice) {
+        return (root, query, cb) -> maxPrice != null
+                ? cb.and(cb.greaterThanOrEqualTo(root.get("price"), minPrice), cb.lessThan(root.get("price"), maxPrice))
+                : cb.greaterThanOrEqualTo(root.get("price"), minPrice);
+    }
+
+    /**
+     * Fetch the eager category and vendor associations in the page query itself
+     * instead of one extra select per row. Skipped for the count query.
+     */
+    public static Specification<Product> fetchAssociations() {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType())
+                    && !long.class.equals(query.getResultType())) {
+                root.fetch("category", JoinType.LEFT);
+                root.fetch("vendor", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+}
@@ -5,16 +5,15 @@ import com.itech.itech_backend.dto.LoginRequestDto;
 import com.itech.itech_backend.dto.RegisterRequestDto;
 import com.itech.itech_backend.dto.SetPasswordDto;
 import com.itech.itech_backend.dto.VerifyOtpRequestDto;
-import com.itech.itech_backend.model.OtpVerification;
+import com.itech.itech_backend.enums.OtpVerifyResult;
+import com.itech.itech_backend.enums.PrincipalTable;
 import com.itech.itech_backend.model.User;
-import com.itech.itech_backend.repository.OtpVerificationRepository;
 import com.itech.itech_backend.repository.UserRepository;
 import com.itech.itech_backend.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Random;
 
@@ -23,14 +22,17 @@ import java.util.Random;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final OtpVerificationRepository otpRepo;
+    private final OtpStore otpStore;
     private final EmailService emailService;
     private final SmsService smsService;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalDirectory principalDirectory;
     
     // Admin access code - in production, this should be in environment variables
     private static final String ADMIN_ACCESS_CODE = "ADMIN2025";
+    
+    private static final String OTP_THROTTLED_MESSAGE = "An OTP cannot be sent right now. Please wait before requesting another.";
 
     public String register(RegisterRequestDto dto) {
         Optional<User> existingUser = userRepository.findByEmailOrPhone(dto.getEmail(), dto.getPhone());
@@ -67,38 +69,19 @@ public class AuthService {
         }
 
         String otp = generateOtp();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(5);
 
-        // Clean up old OTP records for this user
-        if (dto.getEmail() != null) {
-            otpRepo.deleteByEmailOrPhone(dto.getEmail());
-        }
-        if (dto.getPhone() != null) {
-            otpRepo.deleteByEmailOrPhone(dto.getPhone());
-        }
-        // Store OTP for email if provided
-        if (dto.getEmail() != null) {
-            otpRepo.save(OtpVerification.builder()
-                    .emailOrPhone(dto.getEmail())
-                    .otp(otp)
-                    .expiryTime(expiry)
-                    .build());
-        }
-        
-        // Store OTP for phone if provided  
-        if (dto.getPhone() != null) {
-            otpRepo.save(OtpVerification.builder()
-                    .emailOrPhone(dto.getPhone())
-                    .otp(otp)
-                    .expiryTime(expiry)
-                    .build());
+        // Store OTP for email and phone; a contact sent one too recently keeps its current OTP
+        boolean emailIssued = dto.getEmail() != null && otpStore.issue(dto.getEmail(), otp);
+        boolean phoneIssued = dto.getPhone() != null && otpStore.issue(dto.getPhone(), otp);
+        if (!emailIssued && !phoneIssued) {
+            return OTP_THROTTLED_MESSAGE;
         }
 
-        if (dto.getEmail() != null) {
+        if (emailIssued) {
             System.out.println("📧 SENDING EMAIL OTP to: " + dto.getEmail());
             emailService.sendOtp(dto.getEmail(), otp);
         }
-        if (dto.getPhone() != null) {
+        if (phoneIssued) {
             System.out.println("📱 SENDING SMS OTP to: " + dto.getPhone());
             smsService.sendOtp(dto.getPhone(), otp);
         }
@@ -109,18 +92,19 @@ public class AuthService {
     public String sendLoginOtp(LoginRequestDto loginRequest) {
         System.out.println("🔑 Login OTP request for: " + loginRequest.getEmailOrPhone());
         
-        // Check if user exists
-        Optional<User> userOpt = userRepository.findByEmailOrPhone(loginRequest.getEmailOrPhone(), loginRequest.getEmailOrPhone());
-        if (!userOpt.isPresent()) {
+        // Check if user exists; role and password come from the principal cache
+        Optional<PrincipalDirectory.Principal> principalOpt = principalDirectory.find(loginRequest.getEmailOrPhone())
+                .filter(principal -> principal.table() == PrincipalTable.USER);
+        if (!principalOpt.isPresent()) {
             System.out.println("❌ User not found: " + loginRequest.getEmailOrPhone());
             return "User not found. Please register first.";
         }
         
-        User user = userOpt.get();
-        System.out.println("👤 User found: " + user.getName() + " | Email: " + user.getEmail());
+        PrincipalDirectory.Principal user = principalOpt.get();
+        System.out.println("👤 User found: " + user.id() + " | Contact: " + loginRequest.getEmailOrPhone());
         
         // Check if this is an admin login attempt
-        if ("ROLE_ADMIN".equals(user.getRole()) || "ADMIN".equals(user.getRole())) {
+        if ("ROLE_ADMIN".equals(user.role()) || "ADMIN".equals(user.role())) {
             System.out.println("🔐 Admin login attempt detected");
             
             // Verify admin access code
@@ -133,45 +117,39 @@ public class AuthService {
         }
         
         // Check if user has a password set
-        if (user.getPassword() == null || user.getPassword().isEmpty()) {
-            System.out.println("⚠️ User " + user.getName() + " has no password set. Please contact support.");
+        if (user.passwordHash() == null || user.passwordHash().isEmpty()) {
+            System.out.println("⚠️ User " + loginRequest.getEmailOrPhone() + " has no password set. Please contact support.");
             return "Account setup incomplete. Please contact support to set up your password.";
         }
         
         // Validate password - REQUIRED for OTP generation
-        System.out.println("🔍 Validating password for user: " + user.getName());
+        System.out.println("🔍 Validating password for user: " + loginRequest.getEmailOrPhone());
         if (loginRequest.getPassword() == null || loginRequest.getPassword().trim().isEmpty()) {
             System.out.println("❌ Password is required for login");
             return "Password is required for login.";
         }
         
-        boolean passwordMatches = loginRequest.getPassword().equals(user.getPassword());
+        boolean passwordMatches = loginRequest.getPassword().equals(user.passwordHash());
         System.out.println("🔒 Password validation result: " + passwordMatches);
-        System.out.println("🔍 Stored password: " + user.getPassword());
         System.out.println("🔍 Input password: " + loginRequest.getPassword());
         
         if (!passwordMatches) {
-            System.out.println("❌ Invalid password for user: " + user.getName());
+            System.out.println("❌ Invalid password for user: " + loginRequest.getEmailOrPhone());
             return "Invalid password. Please check your credentials and try again.";
         }
         
-        System.out.println("✅ Password validation successful for user: " + user.getName());
+        System.out.println("✅ Password validation successful for user: " + loginRequest.getEmailOrPhone());
         
         String contact = loginRequest.getEmailOrPhone();
         String otp = generateOtp();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(5);
-        
-        // Delete existing OTP
-        otpRepo.deleteByEmailOrPhone(contact);
         
-        // Save new OTP
-        otpRepo.save(OtpVerification.builder()
-                .emailOrPhone(contact)
-                .otp(otp)
-                .expiryTime(expiry)
-                .build());
+        // Replaces any earlier OTP for this contact, unless one was sent too recently
+        if (!otpStore.issue(contact, otp)) {
+            System.out.println("⏳ OTP resend throttled for: " + contact);
+            return OTP_THROTTLED_MESSAGE;
+        }
         
-        System.out.println("🔢 Generated OTP: " + otp + " for " + contact);
+        System.out.println("🔢 Generated OTP for " + contact);
         
         // Send OTP via email or SMS
         if (contact.contains("@")) {
@@ -212,87 +190,52 @@ public class AuthService {
         // Ensure user has correct role before OTP verification
         ensureUserHasCorrectRole(user);
 
-        // Try to find OTP record - check both user's email and phone
-        Optional<OtpVerification> otpOptional = otpRepo.findByEmailOrPhone(contact);
-        
-        if (!otpOptional.isPresent() && user.getEmail() != null) {
+        // Check the OTP sent to this contact, else to the user's other contact method
+        OtpVerifyResult result = otpStore.verify(contact, dto.getOtp());
+        if (result == OtpVerifyResult.NOT_FOUND && user.getEmail() != null && !user.getEmail().equals(contact)) {
             System.out.println("🔍 Trying with user's email: " + user.getEmail());
-            otpOptional = otpRepo.findByEmailOrPhone(user.getEmail());
+            result = otpStore.verify(user.getEmail(), dto.getOtp());
         }
-        
-        if (!otpOptional.isPresent() && user.getPhone() != null) {
+        if (result == OtpVerifyResult.NOT_FOUND && user.getPhone() != null && !user.getPhone().equals(contact)) {
             System.out.println("🔍 Trying with user's phone: " + user.getPhone());
-            otpOptional = otpRepo.findByEmailOrPhone(user.getPhone());
-        }
-        
-        if (!otpOptional.isPresent()) {
-            System.out.println("❌ No OTP found for user: " + user.getName() + " with any contact method");
+            result = otpStore.verify(user.getPhone(), dto.getOtp());
         }
+        System.out.println("🔍 OTP check result: " + result);
 
-        if (otpOptional.isPresent()) {
-            OtpVerification otp = otpOptional.get();
-
-            System.out.println("✅ OTP Found in DB: " + otp.getOtp());
-            System.out.println("⏳ Expiry Time: " + otp.getExpiryTime());
-            System.out.println("🕒 Current Time: " + LocalDateTime.now());
-            System.out.println("🔢 Input OTP: " + dto.getOtp());
-            System.out.println("🔍 OTP Match: " + otp.getOtp().equals(dto.getOtp()));
-            System.out.println("⏰ Time Valid: " + otp.getExpiryTime().isAfter(LocalDateTime.now()));
-
-            if (otp.getOtp().equals(dto.getOtp()) && otp.getExpiryTime().isAfter(LocalDateTime.now())) {
-                System.out.println("🔍 User Role BEFORE JWT: " + user.getRole());
+        if (result == OtpVerifyResult.VERIFIED) {
+            System.out.println("🔍 User Role BEFORE JWT: " + user.getRole());
 
+            // Only a first verification writes to the database
+            User refreshedUser = user;
+            if (!user.isVerified()) {
                 user.setVerified(true);
-                userRepository.save(user);
+                refreshedUser = userRepository.save(user);
                 System.out.println("✅ User marked as verified");
+            }
 
-                otpRepo.delete(otp);
-                System.out.println("🧹 OTP entry deleted after verification");
-
-                try {
-                    // Re-fetch user to ensure we have the latest role
-                    User refreshedUser = userRepository.findByEmailOrPhone(contact, contact).orElse(user);
-                    System.out.println("🔄 Refreshed User Role: " + refreshedUser.getRole());
-                    
-                    String token = jwtUtil.generateToken(refreshedUser.getEmail(), refreshedUser.getRole(), refreshedUser.getId());
-                    System.out.println("✅ JWT Token Generated Successfully with role: " + refreshedUser.getRole() + " and user ID: " + refreshedUser.getId());
-                    System.out.println("🔐 Token: " + token.substring(0, 20) + "...");
+            try {
+                String token = jwtUtil.generateToken(refreshedUser.getEmail(), refreshedUser.getRole(), refreshedUser.getId());
+                System.out.println("✅ JWT Token Generated Successfully with role: " + refreshedUser.getRole() + " and user ID: " + refreshedUser.getId());
+                System.out.println("🔐 Token: " + token.substring(0, 20) + "...");
 
-                    JwtResponse response = JwtResponse.builder()
-                        .token(token)
-                        .message("OTP Verified. Login Successful!")
-                        .user(JwtResponse.UserInfo.builder()
-                            .id(refreshedUser.getId())
-                            .email(refreshedUser.getEmail())
-                            .name(refreshedUser.getName())
-                            .role(refreshedUser.getRole().replace("ROLE_", ""))
-                            .isVerified(refreshedUser.isVerified())
-                            .build())
-                        .build();
-                    System.out.println("🎉 === OTP VERIFICATION SUCCESSFUL ===");
-                    return response;
-                    
-                } catch (Exception e) {
-                    System.out.println("❌ Error generating JWT token: " + e.getMessage());
-                    e.printStackTrace();
-                    return null;
-                }
+                JwtResponse response = JwtResponse.builder()
+                    .token(token)
+                    .message("OTP Verified. Login Successful!")
+                    .user(JwtResponse.UserInfo.builder()
+                        .id(refreshedUser.getId())
+                        .email(refreshedUser.getEmail())
+                        .name(refreshedUser.getName())
+                        .role(refreshedUser.getRole().replace("ROLE_", ""))
+                        .isVerified(refreshedUser.isVerified())
+                        .build())
+                    .build();
+                System.out.println("🎉 === OTP VERIFICATION SUCCESSFUL ===");
+                return response;
                 
-            } else {
-                if (!otp.getOtp().equals(dto.getOtp())) {
-                    System.out.println("❌ OTP mismatch! Expected: " + otp.getOtp() + ", Got: " + dto.getOtp());
-                }
-                if (!otp.getExpiryTime().isAfter(LocalDateTime.now())) {
-                    System.out.println("❌ OTP expired! Expiry: " + otp.getExpiryTime() + ", Now: " + LocalDateTime.now());
-                }
-            }
-        } else {
-            System.out.println("❌ No OTP record found for: " + contact);
-            // Check all OTP records for debugging
-            System.out.println("🔍 Checking all OTP records...");
-            var allOtps = otpRepo.findAll();
-            for (var otpRecord : allOtps) {
-                System.out.println("📝 Found OTP record: " + otpRecord.getEmailOrPhone() + " -> " + otpRecord.getOtp());
+            } catch (Exception e) {
+                System.out.println("❌ Error generating JWT token: " + e.getMessage());
+                e.printStackTrace();
+                return null;
             }
         }
 
@@ -0,0 +1,7 @@
+package com.itech.itech_backend.service;
+
+/**
+ * Published when a user's cart lines are changed outside CartService, e.g. by checkout
+ */
+public record CartChangedEvent(Long userId) {
+}
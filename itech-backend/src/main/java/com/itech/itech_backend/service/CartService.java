@@ -1,17 +1,34 @@
 package com.itech.itech_backend.service;
 
 import com.itech.itech_backend.dto.AddToCartDto;
+import com.itech.itech_backend.dto.BulkCartUpdateDto;
 import com.itech.itech_backend.dto.CartDto;
+import com.itech.itech_backend.dto.CartLineView;
+import com.itech.itech_backend.dto.ProductDetailDto;
+import com.itech.itech_backend.enums.CartLineOperation;
 import com.itech.itech_backend.model.*;
 import com.itech.itech_backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
@@ -23,10 +40,39 @@ public class CartService {
     private final CartItemRepository cartItemRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final HotInventoryLedger hotInventoryLedger;
+    private final JdbcTemplate jdbcTemplate;
+    private final CartStore cartStore;
+    private final ProductDetailCache productDetailCache;
 
+    @Value("${cart.bulk.max-lines:500}")
+    private int bulkMaxLines;
+
+    private static final String CART_ITEM_INSERT =
+            "INSERT INTO cart_item (cart_id, product_id, quantity, price, added_at) VALUES ";
+    private static final int CART_CHANGE_STRIPES = 64;
+
+    // Bumped, per stripe of user ids, whenever a user's cart view is dropped, so a load that raced the change is not stored
+    private final AtomicLongArray cartChanges = new AtomicLongArray(CART_CHANGE_STRIPES);
+
+    // No transaction, so a stored cart is served without taking a connection
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartDto getUserCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        return convertToDto(cart);
+        CartDto cached = cartStore.getUserCart(userId);
+        if (cached != null) {
+            return cached;
+        }
+        int stripe = changeStripe(userId);
+        long changesBefore = cartChanges.get(stripe);
+        CartDto cart = loadCartDto(userId);
+        if (cartChanges.get(stripe) == changesBefore) {
+            cartStore.putUserCart(userId, cart);
+            // A change may have dropped the view between the check and the put
+            if (cartChanges.get(stripe) != changesBefore) {
+                cartStore.evictUserCart(userId);
+            }
+        }
+        return cart;
     }
 
     public CartDto addToCart(Long userId, AddToCartDto addToCartDto) {
@@ -36,7 +82,7 @@ public class CartService {
         Product product = productRepository.findById(addToCartDto.getProductId())
                 .orElseThrow(() -> new RuntimeException("Product not found"));
         
-        if (!product.canOrder(addToCartDto.getQuantity())) {
+        if (!canOrder(product, addToCartDto.getQuantity())) {
             throw new RuntimeException("Product is not available for order or insufficient stock");
         }
         
@@ -50,13 +96,16 @@ public class CartService {
             CartItem item = existingItem.get();
             int newQuantity = item.getQuantity() + addToCartDto.getQuantity();
             
-            if (!product.canOrder(newQuantity)) {
+            if (!canOrder(product, newQuantity)) {
                 throw new RuntimeException("Cannot add more items. Insufficient stock or exceeds maximum order limit");
             }
+            holdHotStock(userId, product, newQuantity);
             
             item.setQuantity(newQuantity);
             cartItemRepository.save(item);
         } else {
+            holdHotStock(userId, product, addToCartDto.getQuantity());
+            
             // Create new cart item
             CartItem cartItem = CartItem.builder()
                     .cart(cart)
@@ -68,7 +117,7 @@ public class CartService {
             cartItemRepository.save(cartItem);
         }
         
-        return convertToDto(cart);
+        return storeCart(userId);
     }
 
     public CartDto updateCartItem(Long userId, Long cartItemId, int quantity) {
@@ -82,18 +131,20 @@ public class CartService {
         }
         
         if (quantity <= 0) {
+            hotInventoryLedger.releaseHold(userId, cartItem.getProduct().getId());
             cartItemRepository.delete(cartItem);
         } else {
             Product product = cartItem.getProduct();
-            if (!product.canOrder(quantity)) {
+            if (!canOrder(product, quantity)) {
                 throw new RuntimeException("Invalid quantity or insufficient stock");
             }
+            holdHotStock(userId, product, quantity);
             
             cartItem.setQuantity(quantity);
             cartItemRepository.save(cartItem);
         }
         
-        return convertToDto(cart);
+        return storeCart(userId);
     }
 
     public CartDto removeFromCart(Long userId, Long cartItemId) {
@@ -106,13 +157,359 @@ public class CartService {
             throw new RuntimeException("Cart item does not belong to user");
         }
         
+        hotInventoryLedger.releaseHold(userId, cartItem.getProduct().getId());
         cartItemRepository.delete(cartItem);
-        return convertToDto(cart);
+        return storeCart(userId);
+    }
+
+    /**
+     * Apply many line changes in one transaction: products and existing lines
+     * are read with one IN query each, every line is validated before anything
+     * is written, and new lines go in as one multi-row INSERT.
+     */
+    public CartDto applyBulk(Long userId, BulkCartUpdateDto bulkUpdate) {
+        List<BulkCartUpdateDto.LineDto> lines = bulkUpdate.getLines();
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("No cart lines given");
+        }
+        if (lines.size() > bulkMaxLines) {
+            throw new IllegalArgumentException("At most " + bulkMaxLines + " cart lines per request");
+        }
+        log.info("Applying {} cart line changes for user {}", lines.size(), userId);
+        
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (BulkCartUpdateDto.LineDto line : lines) {
+            if (line.getProductId() == null) {
+                throw new IllegalArgumentException("Every cart line needs a productId");
+            }
+            productIds.add(line.getProductId());
+        }
+        
+        Cart cart = getOrCreateCart(userId);
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllWithVendorByIdIn(productIds).forEach(product -> products.put(product.getId(), product));
+        Map<Long, CartItem> existingItems = new HashMap<>();
+        cartItemRepository.findByCartIdAndProductIdIn(cart.getId(), productIds)
+                .forEach(item -> existingItems.put(item.getProduct().getId(), item));
+        
+        // Final quantity per product after applying the lines in order
+        Map<Long, Integer> targets = new LinkedHashMap<>();
+        for (BulkCartUpdateDto.LineDto line : lines) {
+            CartLineOperation operation = line.getOperation() != null ? line.getOperation() : CartLineOperation.ADD;
+            if (operation != CartLineOperation.REMOVE && line.getQuantity() < 0) {
+                throw new IllegalArgumentException("Quantity cannot be negative for product " + line.getProductId());
+            }
+            CartItem existing = existingItems.get(line.getProductId());
+            int current = targets.getOrDefault(line.getProductId(), existing != null ? existing.getQuantity() : 0);
+            int target = switch (operation) {
+                case ADD -> current + line.getQuantity();
+                case SET -> line.getQuantity();
+                case REMOVE -> 0;
+            };
+            targets.put(line.getProductId(), target);
+        }
+        
+        // Validate everything first so a bad line leaves the cart untouched
+        List<String> errors = new ArrayList<>();
+        targets.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product == null) {
+                errors.add("Product " + productId + " not found");
+            } else if (quantity > 0 && !canOrder(product, quantity)) {
+                errors.add("Product " + product.getName() + " is not available in quantity " + quantity);
+            }
+        });
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors));
+        }
+        
+        holdHotStock(userId, products, targets);
+        
+        List<CartItem> removed = new ArrayList<>();
+        List<CartItem> added = new ArrayList<>();
+        targets.forEach((productId, quantity) -> {
+            CartItem existing = existingItems.get(productId);
+            if (existing == null) {
+                if (quantity > 0) {
+                    Product product = products.get(productId);
+                    added.add(CartItem.builder().cart(cart).product(product).quantity(quantity).price(product.getPrice()).build());
+                }
+            } else if (quantity == 0) {
+                removed.add(existing);
+            } else if (quantity != existing.getQuantity()) {
+                // Written by dirty checking at flush, batched with the other updates
+                existing.setQuantity(quantity);
+            }
+        });
+        if (!removed.isEmpty()) {
+            cartItemRepository.deleteAllInBatch(removed);
+        }
+        insertCartItems(added);
+        
+        return storeCart(userId);
     }
 
     public void clearCart(Long userId) {
         Cart cart = getOrCreateCart(userId);
+        hotInventoryLedger.releaseAll(userId);
         cartItemRepository.deleteByCartId(cart.getId());
+        evictAfterCompletion(userId);
+    }
+
+    /**
+     * Drop the stored view once another service's change to the cart commits
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onCartChanged(CartChangedEvent event) {
+        evictUserCart(event.userId());
+    }
+
+    // Guest carts are kept only in the cart store, keyed by a client-held id
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CartDto getGuestCart(String guestCartId) {
+        CartDto cart = guestCartId != null ? cartStore.getGuestCart(guestCartId) : null;
+        return cart != null ? cart : buildGuestCart(new ArrayList<>());
+    }
+
+    /**
+     * Whether the store still holds this guest cart, i.e. the id was issued
+     * here and the cart has not expired
+     */
+    public boolean hasGuestCart(String guestCartId) {
+        return cartStore.getGuestCart(guestCartId) != null;
+    }
+
+    /**
+     * Add to a guest cart, checking the product against the product detail
+     * cache rather than the database
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CartDto addToGuestCart(String guestCartId, AddToCartDto addToCartDto) {
+        ProductDetailDto product = productDetailCache.get(addToCartDto.getProductId());
+        return updateGuestCart(guestCartId, items -> {
+            int index = findGuestLine(items, product.getId());
+            int quantity = addToCartDto.getQuantity() + (index >= 0 ? items.get(index).getQuantity() : 0);
+            if (!canOrder(product, quantity)) {
+                throw new RuntimeException("Product is not available for order or insufficient stock");
+            }
+
+            // Keep the price the product was first added at, as for logged-in carts
+            double price = index >= 0 ? items.get(index).getPrice() : product.getPrice();
+            CartDto.CartItemDto line = buildGuestLine(product, quantity, price);
+            if (index >= 0) {
+                items.set(index, line);
+            } else {
+                items.add(line);
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CartDto updateGuestCartItem(String guestCartId, Long productId, int quantity) {
+        ProductDetailDto product = quantity > 0 ? productDetailCache.get(productId) : null;
+        return updateGuestCart(guestCartId, items -> {
+            int index = findGuestLine(items, productId);
+            if (index < 0) {
+                throw new RuntimeException("Cart item not found");
+            }
+
+            if (quantity <= 0) {
+                items.remove(index);
+            } else {
+                if (!canOrder(product, quantity)) {
+                    throw new RuntimeException("Invalid quantity or insufficient stock");
+                }
+                items.set(index, buildGuestLine(product, quantity, items.get(index).getPrice()));
+            }
+        });
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CartDto removeFromGuestCart(String guestCartId, Long productId) {
+        return updateGuestCart(guestCartId, items -> {
+            int index = findGuestLine(items, productId);
+            if (index < 0) {
+                throw new RuntimeException("Cart item not found");
+            }
+            items.remove(index);
+        });
+    }
+
+    /**
+     * Move a guest cart into the user's cart after login. Lines that can no
+     * longer be ordered are skipped rather than failing the login.
+     */
+    public CartDto mergeGuestCart(String guestCartId, Long userId) {
+        CartDto guestCart = cartStore.getGuestCart(guestCartId);
+        if (guestCart == null || guestCart.getItems().isEmpty()) {
+            return getUserCart(userId);
+        }
+        log.info("Merging {} guest cart lines into cart of user {}", guestCart.getItems().size(), userId);
+        
+        List<BulkCartUpdateDto.LineDto> lines = guestCart.getItems().stream()
+                .map(item -> BulkCartUpdateDto.LineDto.builder()
+                        .productId(item.getProductId())
+                        .operation(CartLineOperation.ADD)
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList();
+        CartDto merged;
+        try {
+            merged = applyBulk(userId, new BulkCartUpdateDto(lines));
+        } catch (RuntimeException e) {
+            // applyBulk validates before writing, so nothing was applied; add what still fits line by line
+            log.info("Guest cart for user {} has unavailable lines, merging line by line: {}", userId, e.getMessage());
+            for (BulkCartUpdateDto.LineDto line : lines) {
+                try {
+                    addToCart(userId, new AddToCartDto(line.getProductId(), line.getQuantity()));
+                } catch (RuntimeException lineError) {
+                    log.info("Skipped guest cart line for product {}: {}", line.getProductId(), lineError.getMessage());
+                }
+            }
+            merged = storeCart(userId);
+        }
+        cartStore.evictGuestCart(guestCartId);
+        return merged;
+    }
+
+    public Map<String, Object> getStoreStats() {
+        return cartStore.getStats();
+    }
+
+    /**
+     * Hot products are checked against the in-memory ledger, whose count is
+     * ahead of the product row; everything else against the row's stock
+     */
+    private boolean canOrder(Product product, int quantity) {
+        if (!hotInventoryLedger.isHot(product.getId())) {
+            return product.canOrder(quantity);
+        }
+        return product.isActive() && product.isApproved() && quantity >= product.getMinOrderQuantity();
+    }
+
+    private void holdHotStock(Long userId, Product product, int quantity) {
+        if (hotInventoryLedger.isHot(product.getId())) {
+            hotInventoryLedger.hold(userId, product.getId(), quantity);
+        }
+    }
+
+    /**
+     * Move hot-product holds to the new quantities. Runs in applyBulk's
+     * transaction, so if one cannot be taken the rollback undoes the holds
+     * already changed (see HotInventoryLedger.hold)
+     */
+    private void holdHotStock(Long userId, Map<Long, Product> products, Map<Long, Integer> targets) {
+        targets.forEach((productId, quantity) -> holdHotStock(userId, products.get(productId), quantity));
+    }
+
+    private void insertCartItems(List<CartItem> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        StringBuilder sql = new StringBuilder(CART_ITEM_INSERT);
+        List<Object> args = new ArrayList<>(items.size() * 5);
+        for (CartItem item : items) {
+            sql.append(args.isEmpty() ? "" : ", ").append("(?, ?, ?, ?, ?)");
+            args.add(item.getCart().getId());
+            args.add(item.getProduct().getId());
+            args.add(item.getQuantity());
+            args.add(item.getPrice());
+            args.add(item.getAddedAt());
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * The cart was written to MySQL in this transaction: return the fresh view
+     * and drop the stored one once the transaction ends, so the next read
+     * loads what committed
+     */
+    private CartDto storeCart(Long userId) {
+        CartDto cart = loadCartDto(userId);
+        evictAfterCompletion(userId);
+        return cart;
+    }
+
+    private void evictAfterCompletion(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictUserCart(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evictUserCart(userId);
+            }
+        });
+    }
+
+    private void evictUserCart(Long userId) {
+        cartChanges.incrementAndGet(changeStripe(userId));
+        cartStore.evictUserCart(userId);
+    }
+
+    private static int changeStripe(Long userId) {
+        return Math.floorMod(userId.hashCode(), CART_CHANGE_STRIPES);
+    }
+
+    private boolean canOrder(ProductDetailDto product, int quantity) {
+        return product.isActive() && product.isApproved() && product.getStock() >= quantity
+                && quantity >= product.getMinOrderQuantity();
+    }
+
+    private int findGuestLine(List<CartDto.CartItemDto> items, Long productId) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).getProductId().equals(productId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // Guest lines have no cart_item row, so the product id doubles as the line id
+    private CartDto.CartItemDto buildGuestLine(ProductDetailDto product, int quantity, double price) {
+        return CartDto.CartItemDto.builder()
+                .id(product.getId())
+                .productId(product.getId())
+                .productName(product.getName())
+                .productImage(product.getImageUrls().isEmpty() ? null : product.getImageUrls().get(0))
+                .price(price)
+                .quantity(quantity)
+                .subtotal(quantity * price)
+                .vendorName(product.getVendorName())
+                .vendorId(product.getVendorId())
+                .inStock(product.isInStock())
+                .availableStock(product.getStock())
+                .build();
+    }
+
+    /**
+     * Edit the guest cart's lines inside the store's atomic update, so two
+     * requests on one cart cannot overwrite each other's lines. Products are
+     * looked up before this, outside the store lock.
+     */
+    private CartDto updateGuestCart(String guestCartId, Consumer<List<CartDto.CartItemDto>> update) {
+        return cartStore.updateGuestCart(guestCartId, current -> {
+            List<CartDto.CartItemDto> items = new ArrayList<>(current != null ? current.getItems() : List.of());
+            update.accept(items);
+            return buildGuestCart(items);
+        });
+    }
+
+    private CartDto buildGuestCart(List<CartDto.CartItemDto> items) {
+        double totalAmount = 0;
+        int totalItems = 0;
+        for (CartDto.CartItemDto item : items) {
+            totalAmount += item.getSubtotal();
+            totalItems += item.getQuantity();
+        }
+        return CartDto.builder()
+                .items(List.copyOf(items))
+                .totalAmount(totalAmount)
+                .totalItems(totalItems)
+                .build();
     }
 
     private Cart getOrCreateCart(Long userId) {
@@ -129,43 +526,62 @@ public class CartService {
                 });
     }
 
-    private CartDto convertToDto(Cart cart) {
-        List<CartDto.CartItemDto> itemDtos = cart.getItems().stream()
-                .map(this::convertItemToDto)
-                .collect(Collectors.toList());
+    /**
+     * Cart view built from one query. Totals are accumulated in the same pass
+     * over the lines instead of re-streaming the items for each.
+     */
+    private CartDto loadCartDto(Long userId) {
+        List<CartLineView> lines = cartRepository.findCartLines(userId);
+        if (lines.isEmpty()) {
+            Cart cart = getOrCreateCart(userId);
+            return CartDto.builder()
+                    .id(cart.getId())
+                    .userId(userId)
+                    .items(new ArrayList<>())
+                    .build();
+        }
+        
+        List<CartDto.CartItemDto> itemDtos = new ArrayList<>(lines.size());
+        double totalAmount = 0;
+        int totalItems = 0;
+        for (CartLineView line : lines) {
+            if (line.itemId() == null) {
+                continue;
+            }
+            double subtotal = line.quantity() * line.price();
+            totalAmount += subtotal;
+            totalItems += line.quantity();
+            itemDtos.add(CartDto.CartItemDto.builder()
+                    .id(line.itemId())
+                    .productId(line.productId())
+                    .productName(line.productName())
+                    .productImage(firstImage(line))
+                    .price(line.price())
+                    .quantity(line.quantity())
+                    .subtotal(subtotal)
+                    .vendorName(line.vendorName())
+                    .vendorId(line.vendorId())
+                    .inStock(line.stock() > 0)
+                    .availableStock(line.stock())
+                    .build());
+        }
         
         return CartDto.builder()
-                .id(cart.getId())
-                .userId(cart.getUser().getId())
+                .id(lines.get(0).cartId())
+                .userId(userId)
                 .items(itemDtos)
-                .totalAmount(cart.getTotalAmount())
-                .totalItems(cart.getTotalItems())
+                .totalAmount(totalAmount)
+                .totalItems(totalItems)
                 .build();
     }
 
-    private CartDto.CartItemDto convertItemToDto(CartItem item) {
-        Product product = item.getProduct();
-        String productImage = null;
-        
-        // Get first image if available
-        if (product.getImages() != null && !product.getImages().isEmpty()) {
-            productImage = product.getImages().get(0).getImageUrl();
-        } else if (product.getImageUrls() != null && !product.getImageUrls().isEmpty()) {
-            productImage = product.getImageUrls().split(",")[0];
+    private String firstImage(CartLineView line) {
+        if (line.firstImageUrl() != null) {
+            return line.firstImageUrl();
         }
-        
-        return CartDto.CartItemDto.builder()
-                .id(item.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .productImage(productImage)
-                .price(item.getPrice())
-                .quantity(item.getQuantity())
-                .subtotal(item.getSubtotal())
-                .vendorName(product.getVendor().getName())
-                .vendorId(product.getVendor().getId())
-                .inStock(product.isInStock())
-                .availableStock(product.getStock())
-                .build();
+        if (line.imageUrls() != null && !line.imageUrls().isEmpty()) {
+            return line.imageUrls().split(",")[0];
+        }
+        return null;
     }
 }
@@ -0,0 +1,47 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.dto.CartDto;
+
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Where CartService keeps carts between requests.
+ *
+ * Logged-in carts live in MySQL; the store only caches their views, and each
+ * view expires a fixed time after it was written however often it is read.
+ * The store is per instance with no cross-node invalidation, as for the local
+ * product detail cache: a change made through another node, or a product's
+ * price or stock moving, shows up here once the view expires.
+ *
+ * Guest carts live only in the store, so they expire after sitting idle
+ * instead, and a guest must keep reaching the same node (sticky sessions).
+ */
+public interface CartStore {
+
+    /**
+     * Cached view of a user's cart, or null when missing or expired
+     */
+    CartDto getUserCart(Long userId);
+
+    void putUserCart(Long userId, CartDto cart);
+
+    void evictUserCart(Long userId);
+
+    /**
+     * Guest cart, or null when missing or idle past the TTL; reading it restarts the TTL
+     */
+    CartDto getGuestCart(String guestCartId);
+
+    /**
+     * Replace a guest cart atomically: update gets the current cart (null when
+     * missing or idle past the TTL) and returns the new one. Concurrent updates
+     * of one cart run one after the other; if update throws, the cart is left
+     * as it was.
+     */
+    CartDto updateGuestCart(String guestCartId, UnaryOperator<CartDto> update);
+
+    void evictGuestCart(String guestCartId);
+
+    Map<String, Object> getStats();
+}
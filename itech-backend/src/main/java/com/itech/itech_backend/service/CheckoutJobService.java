@@ -0,0 +1,214 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.dto.CheckoutJobDto;
+import com.itech.itech_backend.enums.CheckoutJobStatus;
+import com.itech.itech_backend.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accepts checkouts and runs them on the bounded checkout executor, so the
+ * HTTP request returns a handle straight away. Clients poll the job or
+ * subscribe to its event stream to follow it to the placed order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutJobService {
+
+    private final OrderService orderService;
+    private final ThreadPoolTaskExecutor checkoutExecutor;
+
+    @Value("${checkout.async.job-retention-minutes:30}")
+    private long jobRetentionMinutes;
+
+    @Value("${checkout.async.max-jobs:10000}")
+    private int maxJobs;
+
+    @Value("${checkout.async.sse-timeout-ms:60000}")
+    private long sseTimeoutMs;
+
+    private BoundedCache<String, Job> jobs;
+    // One checkout in flight per user, so a double submit does not place two orders
+    private final Map<Long, Job> activeJobsByUser = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        jobs = new BoundedCache<>(maxJobs, Duration.ofMinutes(jobRetentionMinutes));
+    }
+
+    /**
+     * Queue a checkout for the user, or return the one already in flight.
+     *
+     * @throws TaskRejectedException when the executor and its queue are full
+     */
+    public CheckoutJobDto submit(Long userId, CheckoutDto checkoutDto) {
+        Job job = new Job(UUID.randomUUID().toString(), userId);
+        Job active = activeJobsByUser.putIfAbsent(userId, job);
+        if (active != null) {
+            return active.snapshot();
+        }
+        jobs.put(job.checkoutId, job);
+        try {
+            checkoutExecutor.execute(() -> run(job, checkoutDto));
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            activeJobsByUser.remove(userId, job);
+            jobs.invalidate(job.checkoutId);
+            log.warn("Checkout queue full, rejecting checkout for user {}", userId);
+            throw e;
+        }
+        submitted.incrementAndGet();
+        return job.snapshot();
+    }
+
+    public CheckoutJobDto getJob(String checkoutId, Long userId) {
+        return findJob(checkoutId, userId).snapshot();
+    }
+
+    /**
+     * Event stream of the job's state changes; sends the current state first
+     * and completes once the job has finished. That is when createOrder
+     * returned, not when the order is paid, so an online order is reported
+     * with orderStatus PENDING.
+     */
+    public SseEmitter subscribe(String checkoutId, Long userId) {
+        Job job = findJob(checkoutId, userId);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitter.onCompletion(() -> job.removeEmitter(emitter));
+        emitter.onTimeout(() -> job.removeEmitter(emitter));
+        emitter.onError(e -> job.removeEmitter(emitter));
+        job.addEmitter(emitter);
+        return emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("submitted", submitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("failed", failed.get());
+        stats.put("inFlight", activeJobsByUser.size());
+        stats.put("activeThreads", checkoutExecutor.getActiveCount());
+        stats.put("queued", checkoutExecutor.getQueueSize());
+        return stats;
+    }
+
+    private void run(Job job, CheckoutDto checkoutDto) {
+        job.update(CheckoutJobStatus.PROCESSING, null, null);
+        try {
+            Map<String, Object> result = orderService.createOrder(job.userId, checkoutDto);
+            job.update(CheckoutJobStatus.COMPLETED, result, null);
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Asynchronous checkout {} failed for user {}", job.checkoutId, job.userId, e);
+            job.update(CheckoutJobStatus.FAILED, null, e.getMessage());
+        } finally {
+            activeJobsByUser.remove(job.userId, job);
+        }
+    }
+
+    private Job findJob(String checkoutId, Long userId) {
+        Job job = jobs.get(checkoutId);
+        // Someone else's checkout is reported the same as an unknown one
+        if (job == null || !job.userId.equals(userId)) {
+            throw new IllegalArgumentException("Checkout not found: " + checkoutId);
+        }
+        return job;
+    }
+
+    private static final class Job {
+        private final String checkoutId;
+        private final Long userId;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final List<SseEmitter> emitters = new ArrayList<>();
+        private CheckoutJobStatus status = CheckoutJobStatus.QUEUED;
+        private Map<String, Object> result;
+        private String error;
+        private LocalDateTime updatedAt = submittedAt;
+
+        private Job(String checkoutId, Long userId) {
+            this.checkoutId = checkoutId;
+            this.userId = userId;
+        }
+
+        synchronized CheckoutJobDto snapshot() {
+            return CheckoutJobDto.builder()
+                    .checkoutId(checkoutId)
+                    .status(status)
+                    .orderId(result != null ? (Long) result.get("orderId") : null)
+                    .orderNumber(result != null ? (String) result.get("orderNumber") : null)
+                    .orderStatus(result != null ? (String) result.get("orderStatus") : null)
+                    .result(result)
+                    .error(error)
+                    .submittedAt(submittedAt)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+
+        synchronized void update(CheckoutJobStatus status, Map<String, Object> result, String error) {
+            this.status = status;
+            this.result = result;
+            this.error = error;
+            this.updatedAt = LocalDateTime.now();
+            CheckoutJobDto snapshot = snapshot();
+            for (SseEmitter emitter : List.copyOf(emitters)) {
+                send(emitter, snapshot);
+            }
+            if (status.isFinished()) {
+                emitters.forEach(SseEmitter::complete);
+                emitters.clear();
+            }
+        }
+
+        // Under the job lock, so a subscriber never misses a change between the first event and registering
+        synchronized void addEmitter(SseEmitter emitter) {
+            CheckoutJobDto snapshot = snapshot();
+            if (!send(emitter, snapshot)) {
+                return;
+            }
+            if (status.isFinished()) {
+                emitter.complete();
+            } else {
+                emitters.add(emitter);
+            }
+        }
+
+        synchronized void removeEmitter(SseEmitter emitter) {
+            emitters.remove(emitter);
+        }
+
+        private boolean send(SseEmitter emitter, CheckoutJobDto snapshot) {
+            try {
+                emitter.send(SseEmitter.event().name("checkout").data(snapshot));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; drop the emitter
+                emitters.remove(emitter);
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.OtpVerifyResult;
+import com.itech.itech_backend.model.OtpVerification;
+import com.itech.itech_backend.repository.OtpVerificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OTPs in the otp_verification table, for deployments where the OTP may be
+ * sent by one node and checked on another. Each guess is counted with a
+ * conditional UPDATE before the code is compared, so concurrent guesses on
+ * different nodes cannot exceed the attempt limit. A contact keeps one row:
+ * a new OTP is written over the old one, so the count carries over.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "database")
+@RequiredArgsConstructor
+@Slf4j
+public class DatabaseOtpStore implements OtpStore {
+
+    private final OtpVerificationRepository otpRepo;
+
+    @Value("${otp.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${otp.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${otp.resend-interval-seconds:30}")
+    private long resendIntervalSeconds;
+
+    @Value("${otp.lockout-window-seconds:900}")
+    private long lockoutWindowSeconds;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong lockedOut = new AtomicLong();
+
+    @Override
+    @Transactional
+    public boolean issue(String contact, String otp) {
+        // Create the contact's row if needed, then lock it: a concurrent send waits here and then sees this one
+        otpRepo.insertIfAbsent(contact);
+        OtpVerification record = otpRepo.findForUpdate(contact)
+                .orElseThrow(() -> new IllegalStateException("OTP row for contact was not created"));
+        LocalDateTime now = LocalDateTime.now();
+        if (isLockedOut(record, now)) {
+            lockedOut.incrementAndGet();
+            return false;
+        }
+        if (record.getSentAt() != null && record.getSentAt().isAfter(now.minusSeconds(resendIntervalSeconds))) {
+            throttled.incrementAndGet();
+            return false;
+        }
+        // Overwrite rather than replace the row, keeping attempts and attemptsSince
+        record.setOtp(otp);
+        record.setExpiryTime(now.plusSeconds(ttlSeconds));
+        record.setSentAt(now);
+        otpRepo.save(record);
+        issued.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public OtpVerifyResult verify(String contact, String otp) {
+        OtpVerifyResult result = check(contact, otp);
+        (result == OtpVerifyResult.VERIFIED ? verified : rejected).incrementAndGet();
+        return result;
+    }
+
+    private OtpVerifyResult check(String contact, String otp) {
+        Optional<OtpVerification> stored = otpRepo.findByEmailOrPhone(contact);
+        if (stored.isEmpty() || stored.get().getOtp() == null) {
+            return OtpVerifyResult.NOT_FOUND;
+        }
+        OtpVerification record = stored.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (isLockedOut(record, now)) {
+            return OtpVerifyResult.TOO_MANY_ATTEMPTS;
+        }
+        if (!record.getExpiryTime().isAfter(now)) {
+            return OtpVerifyResult.EXPIRED;
+        }
+        if (otpRepo.recordAttempt(record.getId(), maxAttempts, now.minusSeconds(lockoutWindowSeconds), now) == 0) {
+            return OtpVerifyResult.TOO_MANY_ATTEMPTS;
+        }
+        if (!InMemoryOtpStore.matches(record.getOtp(), otp)) {
+            return OtpVerifyResult.MISMATCH;
+        }
+        otpRepo.deleteById(record.getId());
+        return OtpVerifyResult.VERIFIED;
+    }
+
+    private boolean isLockedOut(OtpVerification record, LocalDateTime now) {
+        return record.getAttempts() >= maxAttempts && record.getAttemptsSince() != null
+                && !record.getAttemptsSince().isBefore(now.minusSeconds(lockoutWindowSeconds));
+    }
+
+    /**
+     * Drop rows whose OTP has expired, whose resend interval has passed and
+     * whose failed attempts have aged out of the lockout window
+     */
+    @Scheduled(fixedDelayString = "${otp.database.purge-interval-ms:600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = otpRepo.deleteExpiredBefore(now.minusSeconds(resendIntervalSeconds),
+                now.minusSeconds(lockoutWindowSeconds));
+        if (purged > 0) {
+            log.debug("Purged {} expired OTP rows", purged);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", "database");
+        stats.put("issued", issued.get());
+        stats.put("throttled", throttled.get());
+        stats.put("verified", verified.get());
+        stats.put("rejected", rejected.get());
+        stats.put("lockedOut", lockedOut.get());
+        return stats;
+    }
+}
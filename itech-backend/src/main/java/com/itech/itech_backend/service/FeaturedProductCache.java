@@ -0,0 +1,120 @@
+package com.itech.itech_backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itech.itech_backend.dto.ProductSummaryDto;
+import com.itech.itech_backend.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Homepage featured list, loaded once and kept as serialized JSON until a
+ * product mutation invalidates it or the TTL runs out.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeaturedProductCache {
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.featured.cache-size:50}")
+    private int cacheSize;
+
+    @Value("${product.featured.cache-ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private volatile Snapshot snapshot;
+    // Bumped on every invalidation so a load that raced one is not published
+    private long generation;
+
+    /**
+     * JSON array of up to limit featured products
+     */
+    public byte[] getJson(int limit) {
+        int size = Math.max(0, Math.min(limit, cacheSize));
+        Snapshot current = current();
+        return current.json.computeIfAbsent(size, n -> serialize(current.products, n));
+    }
+
+    /**
+     * Drop the cached list if the changed product is, or was, part of it
+     */
+    public void onProductChanged(Long productId, boolean featured) {
+        Snapshot current = snapshot;
+        if (featured || current == null || current.productIds.contains(productId)) {
+            invalidate();
+        }
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.expiresAt.isAfter(Instant.now())) {
+            return current;
+        }
+        return load();
+    }
+
+    private Snapshot load() {
+        long loadGeneration;
+        synchronized (this) {
+            Snapshot current = snapshot;
+            if (current != null && current.expiresAt.isAfter(Instant.now())) {
+                return current;
+            }
+            loadGeneration = generation;
+        }
+
+        List<ProductSummaryDto> products = productRepository.findFeatured(Limit.of(cacheSize)).stream()
+                .map(ProductSummaryDto::from)
+                .toList();
+        Snapshot loaded = new Snapshot(products, Instant.now().plus(Duration.ofSeconds(ttlSeconds)));
+        log.debug("Loaded {} featured products", products.size());
+
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                snapshot = loaded;
+            }
+        }
+        return loaded;
+    }
+
+    private byte[] serialize(List<ProductSummaryDto> products, int limit) {
+        try {
+            return objectMapper.writeValueAsBytes(products.subList(0, Math.min(limit, products.size())));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize featured products", e);
+        }
+    }
+
+    private static final class Snapshot {
+        private final List<ProductSummaryDto> products;
+        private final Set<Long> productIds;
+        private final Instant expiresAt;
+        // Serialized form per requested limit, built on first use
+        private final Map<Integer, byte[]> json = new ConcurrentHashMap<>();
+
+        private Snapshot(List<ProductSummaryDto> products, Instant expiresAt) {
+            this.products = products;
+            this.productIds = products.stream().map(ProductSummaryDto::getId).collect(Collectors.toSet());
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.itech.itech_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stock counters for designated flash-sale products, so carts and
+ * checkouts on those products never contend on the product row.
+ *
+ * Adding to a cart places a hold with a TTL; checkout turns the hold into a
+ * sale. Sales are written to MySQL in batches by {@link #reconcile()}, which
+ * also picks up stock changed outside the ledger (e.g. a vendor restock).
+ * Holds that expire go back to the available count. Products not listed in
+ * inventory.hot-ledger.product-ids use the database path.
+ *
+ * The counters are local to one JVM, so only one node may run the ledger:
+ * at startup it takes a MySQL named lock on a connection it keeps open, and
+ * refuses to start if another node holds it. Should the lock be lost later
+ * the ledger stops tracking and those products fall back to the database
+ * path. Flushes are guarded so they never take a row below zero; a sale the
+ * row cannot cover is rejected and logged rather than written.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HotInventoryLedger {
+
+    private static final String FLUSH_SQL =
+            "UPDATE product SET stock = stock - ?, order_count = order_count + ? WHERE id = ? AND stock >= ?";
+    private static final String NODE_LOCK = "itech.hot_inventory_ledger";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final StockReservationService stockReservationService;
+
+    @Value("${inventory.hot-ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${inventory.hot-ledger.product-ids:}")
+    private Set<Long> configuredProductIds;
+
+    @Value("${inventory.hot-ledger.hold-ttl-seconds:900}")
+    private long holdTtlSeconds;
+
+    // Filled once at startup and only replaced, with an empty map, if the node lock is lost
+    private volatile Map<Long, HotProduct> hotProducts = Map.of();
+    private final Map<HoldKey, Hold> holds = new ConcurrentHashMap<>();
+    // Committed sales of products no longer tracked, still to be written by the next reconcile
+    private final Map<Long, AtomicInteger> untrackedSales = new ConcurrentHashMap<>();
+
+    // Session holding the node lock; kept out of the pool for as long as the ledger runs
+    private Connection lockConnection;
+
+    private final AtomicLong flushedSales = new AtomicLong();
+    private final AtomicLong rejectedSales = new AtomicLong();
+    private final AtomicLong expiredHolds = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled || configuredProductIds.isEmpty()) {
+            return;
+        }
+        if (!acquireNodeLock()) {
+            throw new IllegalStateException("Hot inventory ledger is already running on another node; "
+                    + "set inventory.hot-ledger.enabled=true on one node only");
+        }
+        Map<Long, Integer> stock = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, stock FROM product WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", configuredProductIds),
+                rs -> {
+                    stock.put(rs.getLong("id"), rs.getInt("stock"));
+                });
+        track(stock);
+        log.info("Hot inventory ledger tracking products {}", stock.keySet());
+    }
+
+    void track(Map<Long, Integer> stockByProduct) {
+        Map<Long, HotProduct> loaded = new ConcurrentHashMap<>();
+        stockByProduct.forEach((productId, stock) -> loaded.put(productId, new HotProduct(productId, stock)));
+        hotProducts = loaded;
+    }
+
+    public boolean isHot(Long productId) {
+        return hotProducts.containsKey(productId);
+    }
+
+    /**
+     * Set the user's hold on a hot product to quantity, taking or returning
+     * the difference, and restart its TTL. Zero removes the hold. Inside a
+     * transaction the change is undone if the transaction rolls back.
+     */
+    public void hold(Long userId, Long productId, int quantity) {
+        HotProduct product = hotProducts.get(productId);
+        if (product == null) {
+            throw new IllegalArgumentException("Product " + productId + " is not tracked by the hot inventory ledger");
+        }
+        long expiresAt = System.currentTimeMillis() + holdTtlSeconds * 1000;
+        HoldKey holdKey = new HoldKey(userId, productId);
+        Hold[] previous = new Hold[1];
+        Hold applied = holds.compute(holdKey, (key, existing) -> {
+            previous[0] = existing;
+            int delta = quantity - (existing != null ? existing.quantity() : 0);
+            if (delta > 0 && !product.tryTake(delta)) {
+                throw new StockReservationService.InsufficientStockException(List.of(productId));
+            }
+            if (delta < 0) {
+                product.available.addAndGet(-delta);
+            }
+            return quantity > 0 ? new Hold(quantity, expiresAt) : null;
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        undoHold(holdKey, product, previous[0], applied);
+                    }
+                }
+            });
+        }
+    }
+
+    // Put back the hold a rolled-back transaction replaced, unless it has changed again since
+    private void undoHold(HoldKey holdKey, HotProduct product, Hold previous, Hold applied) {
+        holds.compute(holdKey, (key, current) -> {
+            if (current != applied) {
+                return current;
+            }
+            int delta = (previous != null ? previous.quantity() : 0) - (applied != null ? applied.quantity() : 0);
+            if (delta > 0 && !product.tryTake(delta)) {
+                // The stock given up has been held or sold by someone else meanwhile
+                return current;
+            }
+            if (delta < 0) {
+                product.available.addAndGet(-delta);
+            }
+            return previous;
+        });
+    }
+
+    public void releaseHold(Long userId, Long productId) {
+        if (isHot(productId)) {
+            hold(userId, productId, 0);
+        }
+    }
+
+    public void releaseAll(Long userId) {
+        for (Long productId : hotProducts.keySet()) {
+            releaseHold(userId, productId);
+        }
+    }
+
+    /**
+     * Sell hot products at checkout, using the user's holds first and the
+     * available count for the rest. Nothing is sold unless every product can
+     * be covered. Inside a transaction the sale only counts once it commits;
+     * a rollback returns the stock.
+     */
+    public void commit(Long userId, Map<Long, Integer> quantities) {
+        // The products are captured now: tracking may stop before the transaction completes
+        Map<HotProduct, Integer> taken = new LinkedHashMap<>();
+        List<Long> shortProducts = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            HotProduct product = hotProducts.get(entry.getKey());
+            if (product == null) {
+                throw new IllegalArgumentException("Product " + entry.getKey() + " is not tracked by the hot inventory ledger");
+            }
+            Hold hold = holds.remove(new HoldKey(userId, entry.getKey()));
+            int fromHold = hold != null ? Math.min(hold.quantity(), entry.getValue()) : 0;
+            if (hold != null && hold.quantity() > fromHold) {
+                product.available.addAndGet(hold.quantity() - fromHold);
+            }
+            int extra = entry.getValue() - fromHold;
+            if (extra > 0 && !product.tryTake(extra)) {
+                product.available.addAndGet(fromHold);
+                shortProducts.add(entry.getKey());
+                continue;
+            }
+            taken.put(product, entry.getValue());
+        }
+        if (!shortProducts.isEmpty()) {
+            taken.forEach((product, quantity) -> product.available.addAndGet(quantity));
+            throw new StockReservationService.InsufficientStockException(shortProducts);
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            taken.forEach(this::recordSale);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                taken.forEach((product, quantity) -> {
+                    if (status == STATUS_COMMITTED) {
+                        recordSale(product, quantity);
+                    } else {
+                        product.available.addAndGet(quantity);
+                    }
+                });
+            }
+        });
+    }
+
+    private void recordSale(HotProduct product, int quantity) {
+        product.pendingSales.addAndGet(quantity);
+        if (product.retired) {
+            // Tracking stopped meanwhile; whichever of us drains first moves the sale to the untracked queue
+            moveToUntracked(product);
+        }
+    }
+
+    private void moveToUntracked(HotProduct product) {
+        int pending = product.pendingSales.getAndSet(0);
+        if (pending != 0) {
+            untrackedSales.computeIfAbsent(product.id, id -> new AtomicInteger()).addAndGet(pending);
+        }
+    }
+
+    /**
+     * Undo a committed sale, e.g. for a checkout whose payment could not be
+     * set up. The stock is available again at once; the product row is
+     * corrected by the next reconcile. Products no longer tracked have the
+     * stock put back on their rows directly.
+     */
+    public void returnSale(Map<Long, Integer> quantities) {
+        Map<Long, Integer> untracked = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            HotProduct product = hotProducts.get(productId);
+            if (product == null) {
+                untracked.put(productId, quantity);
+                return;
+            }
+            product.pendingSales.addAndGet(-quantity);
+            product.available.addAndGet(quantity);
+        });
+        stockReservationService.release(untracked);
+    }
+
+    /**
+     * Write sales to the product rows in one batch, then fold in any stock
+     * change made directly in the database since the last run
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-ledger.reconcile-interval-ms:2000}")
+    public synchronized void reconcile() {
+        if (hotProducts.isEmpty() && untrackedSales.isEmpty()) {
+            return;
+        }
+        boolean lockHeld = hotProducts.isEmpty() || isNodeLockHeld();
+        Map<Long, Integer> drained = new LinkedHashMap<>();
+        hotProducts.forEach((productId, product) -> {
+            // Negative after returned sales that were already flushed
+            int sold = product.pendingSales.getAndSet(0);
+            if (sold != 0) {
+                drained.merge(productId, sold, Integer::sum);
+            }
+        });
+        untrackedSales.forEach((productId, pending) -> {
+            int sold = pending.getAndSet(0);
+            if (sold != 0) {
+                drained.merge(productId, sold, Integer::sum);
+            }
+        });
+        List<Object[]> sales = new ArrayList<>();
+        drained.forEach((productId, sold) -> sales.add(new Object[]{sold, sold, productId, Math.max(sold, 0)}));
+
+        if (!sales.isEmpty()) {
+            int[] counts;
+            try {
+                // One transaction, so a failure part way leaves nothing written and retrying cannot sell twice
+                counts = transactionTemplate.execute(status -> jdbcTemplate.getJdbcTemplate().batchUpdate(FLUSH_SQL, sales));
+            } catch (Exception e) {
+                drained.forEach(this::requeueSale);
+                log.error("Failed to flush hot inventory sales {}", drained, e);
+                return;
+            }
+            int i = 0;
+            for (Map.Entry<Long, Integer> entry : drained.entrySet()) {
+                // SUCCESS_NO_INFO (rewritten batches) cannot tell a guarded miss apart, so it counts as applied
+                if (counts[i++] == 0) {
+                    rejectedSales.addAndGet(entry.getValue());
+                    log.error("Hot product {} has less stock in the database than the {} units sold; sale not written",
+                            entry.getKey(), entry.getValue());
+                    continue;
+                }
+                HotProduct product = hotProducts.get(entry.getKey());
+                if (product != null) {
+                    product.knownDatabaseStock -= entry.getValue();
+                }
+                flushedSales.addAndGet(entry.getValue());
+            }
+        }
+
+        if (!lockHeld) {
+            stopTracking();
+            return;
+        }
+        if (hotProducts.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.query("SELECT id, stock FROM product WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", hotProducts.keySet()),
+                rs -> {
+                    HotProduct product = hotProducts.get(rs.getLong("id"));
+                    if (product == null) {
+                        return;
+                    }
+                    int databaseStock = rs.getInt("stock");
+                    int drift = databaseStock - product.knownDatabaseStock;
+                    if (drift != 0) {
+                        log.info("Hot product {} stock changed outside the ledger by {}", rs.getLong("id"), drift);
+                        product.available.addAndGet(drift);
+                        product.knownDatabaseStock = databaseStock;
+                    }
+                });
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.hot-ledger.expiry-interval-ms:10000}")
+    public void expireHolds() {
+        long now = System.currentTimeMillis();
+        holds.forEach((key, hold) -> {
+            // remove(key, value) fails if the hold was refreshed meanwhile
+            if (hold.expiresAt() < now && holds.remove(key, hold)) {
+                HotProduct product = hotProducts.get(key.productId());
+                if (product != null) {
+                    product.available.addAndGet(hold.quantity());
+                }
+                expiredHolds.incrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        reconcile();
+        releaseNodeLock();
+    }
+
+    private boolean acquireNodeLock() {
+        try {
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                statement.setString(1, NODE_LOCK);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) == 1) {
+                        lockConnection = connection;
+                        return true;
+                    }
+                }
+            }
+            connection.close();
+            return false;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not take the hot inventory ledger node lock", e);
+        }
+    }
+
+    // A dropped session releases its named lock, so a lost connection means another node may have taken over
+    private boolean isNodeLockHeld() {
+        try {
+            if (lockConnection != null && lockConnection.isValid(2)) {
+                return true;
+            }
+            releaseNodeLock();
+            return acquireNodeLock();
+        } catch (Exception e) {
+            log.error("Could not check the hot inventory ledger node lock", e);
+            return false;
+        }
+    }
+
+    private void releaseNodeLock() {
+        Connection connection = lockConnection;
+        lockConnection = null;
+        if (connection == null) {
+            return;
+        }
+        try (connection; Statement statement = connection.createStatement()) {
+            statement.execute("DO RELEASE_LOCK('" + NODE_LOCK + "')");
+        } catch (SQLException e) {
+            log.debug("Hot inventory ledger node lock connection already closed", e);
+        }
+    }
+
+    // Only called from reconcile(), so no flush runs meanwhile
+    private void requeueSale(Long productId, int sold) {
+        HotProduct product = hotProducts.get(productId);
+        if (product != null) {
+            product.pendingSales.addAndGet(sold);
+        } else {
+            untrackedSales.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(sold);
+        }
+    }
+
+    /**
+     * Hand the hot products back to the database path; open holds are
+     * dropped, checkout re-checks stock there. Sales committing after this
+     * point are queued for the next reconcile rather than lost.
+     */
+    void stopTracking() {
+        Map<Long, HotProduct> stopped = hotProducts;
+        log.error("Hot inventory ledger lost its node lock; products {} now use the database path", stopped.keySet());
+        hotProducts = Map.of();
+        holds.clear();
+        stopped.values().forEach(product -> {
+            product.retired = true;
+            moveToUntracked(product);
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> products = new LinkedHashMap<>();
+        hotProducts.forEach((productId, product) -> products.put(String.valueOf(productId), Map.of(
+                "available", product.available.get(),
+                "pendingSales", product.pendingSales.get())));
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("products", products);
+        stats.put("activeHolds", holds.size());
+        stats.put("expiredHolds", expiredHolds.get());
+        stats.put("flushedSales", flushedSales.get());
+        stats.put("rejectedSales", rejectedSales.get());
+        stats.put("untrackedPendingSales", untrackedSales.values().stream().mapToInt(AtomicInteger::get).sum());
+        return stats;
+    }
+
+    private static final class HotProduct {
+        private final long id;
+        // Stock that can still be held or sold
+        private final AtomicInteger available;
+        // Sold and committed but not yet written to the product row
+        private final AtomicInteger pendingSales = new AtomicInteger();
+        // Product row stock as of the last reconcile; only touched under reconcile()'s lock
+        private int knownDatabaseStock;
+        // Set once tracking stops; sales recorded afterwards go to the untracked queue
+        private volatile boolean retired;
+
+        private HotProduct(long id, int stock) {
+            this.id = id;
+            this.available = new AtomicInteger(stock);
+            this.knownDatabaseStock = stock;
+        }
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+    }
+
+    private record HoldKey(Long userId, Long productId) {
+    }
+
+    private record Hold(int quantity, long expiresAt) {
+    }
+}
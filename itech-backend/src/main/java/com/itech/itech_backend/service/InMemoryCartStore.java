@@ -0,0 +1,81 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.dto.CartDto;
+import com.itech.itech_backend.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-instance cart store. User cart views expire a fixed TTL after they are
+ * written; guest carts are re-stored on each read, so only idle ones expire.
+ * The least recently used go first when either side is full.
+ */
+@Component
+public class InMemoryCartStore implements CartStore {
+
+    @Value("${cart.store.max-size:50000}")
+    private int maxSize;
+
+    @Value("${cart.store.user-ttl-seconds:30}")
+    private long userTtlSeconds;
+
+    @Value("${cart.store.idle-ttl-minutes:30}")
+    private long idleTtlMinutes;
+
+    private BoundedCache<Long, CartDto> userCarts;
+    private BoundedCache<String, CartDto> guestCarts;
+
+    @PostConstruct
+    void init() {
+        userCarts = new BoundedCache<>(maxSize, Duration.ofSeconds(userTtlSeconds));
+        guestCarts = new BoundedCache<>(maxSize, Duration.ofMinutes(idleTtlMinutes));
+    }
+
+    @Override
+    public CartDto getUserCart(Long userId) {
+        return userCarts.get(userId);
+    }
+
+    @Override
+    public void putUserCart(Long userId, CartDto cart) {
+        userCarts.put(userId, cart);
+    }
+
+    @Override
+    public void evictUserCart(Long userId) {
+        userCarts.invalidate(userId);
+    }
+
+    @Override
+    public CartDto getGuestCart(String guestCartId) {
+        CartDto cart = guestCarts.get(guestCartId);
+        if (cart != null) {
+            guestCarts.put(guestCartId, cart);
+        }
+        return cart;
+    }
+
+    @Override
+    public CartDto updateGuestCart(String guestCartId, UnaryOperator<CartDto> update) {
+        return guestCarts.compute(guestCartId, update);
+    }
+
+    @Override
+    public void evictGuestCart(String guestCartId) {
+        guestCarts.invalidate(guestCartId);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("userCarts", userCarts.getStats());
+        stats.put("guestCarts", guestCarts.getStats());
+        return stats;
+    }
+}
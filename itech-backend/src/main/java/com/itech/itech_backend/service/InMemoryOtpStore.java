@@ -0,0 +1,211 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.OtpVerifyResult;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * OTPs in a per-instance map; issuing and verifying never touch the database.
+ *
+ * Entries are removed by a timing wheel: a ring of one-second buckets holding
+ * the contacts due to go in that second. Each tick empties one bucket, so
+ * expiry costs time proportional to what expires, not to the map size. An
+ * entry stays until its OTP has expired, its resend interval has passed and
+ * its failed attempts have aged out, so the throttle and the lockout outlive
+ * a consumed or expired code. Reads check expiry themselves and do not
+ * depend on the wheel being on time.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    static final long TICK_MILLIS = 1000;
+    // Power of two; covers about 8.5 minutes per turn, longer entries go round again
+    private static final int WHEEL_SLOTS = 512;
+
+    private final long ttlMillis;
+    private final int maxAttempts;
+    private final long resendIntervalMillis;
+    private final long lockoutWindowMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String>[] wheel;
+    // Last tick whose bucket was emptied; only touched under advance()'s lock
+    private long lastTick;
+
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong verified = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong lockedOut = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+
+    @Autowired
+    public InMemoryOtpStore(@Value("${otp.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${otp.max-attempts:5}") int maxAttempts,
+                            @Value("${otp.resend-interval-seconds:30}") long resendIntervalSeconds,
+                            @Value("${otp.lockout-window-seconds:900}") long lockoutWindowSeconds) {
+        this(ttlSeconds * 1000, maxAttempts, resendIntervalSeconds * 1000, lockoutWindowSeconds * 1000,
+                System::currentTimeMillis);
+    }
+
+    @SuppressWarnings("unchecked")
+    InMemoryOtpStore(long ttlMillis, int maxAttempts, long resendIntervalMillis, long lockoutWindowMillis,
+                     LongSupplier clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxAttempts = maxAttempts;
+        this.resendIntervalMillis = resendIntervalMillis;
+        this.lockoutWindowMillis = lockoutWindowMillis;
+        this.clock = clock;
+        this.wheel = new Set[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.lastTick = clock.getAsLong() / TICK_MILLIS;
+    }
+
+    @Override
+    public boolean issue(String contact, String otp) {
+        long now = clock.getAsLong();
+        Entry[] fresh = new Entry[1];
+        Entry stored = entries.compute(contact, (key, existing) -> {
+            if (existing == null) {
+                return fresh[0] = new Entry(otp, now + ttlMillis, now, 0, 0);
+            }
+            if (existing.isLockedOut(now, maxAttempts, lockoutWindowMillis)
+                    || now - existing.sentAt() < resendIntervalMillis) {
+                return existing;
+            }
+            // The failed attempts belong to the contact, not the code, so a new code does not reset them
+            return fresh[0] = new Entry(otp, now + ttlMillis, now,
+                    existing.failuresAt(now, lockoutWindowMillis), existing.failuresSince());
+        });
+        if (stored != fresh[0]) {
+            (stored.isLockedOut(now, maxAttempts, lockoutWindowMillis) ? lockedOut : throttled).incrementAndGet();
+            return false;
+        }
+        schedule(contact, stored, 0);
+        issued.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public OtpVerifyResult verify(String contact, String otp) {
+        long now = clock.getAsLong();
+        OtpVerifyResult[] result = {OtpVerifyResult.NOT_FOUND};
+        entries.computeIfPresent(contact, (key, entry) -> {
+            if (entry.isLockedOut(now, maxAttempts, lockoutWindowMillis)) {
+                result[0] = OtpVerifyResult.TOO_MANY_ATTEMPTS;
+                return entry;
+            }
+            if (entry.otp() == null) {
+                return entry;
+            }
+            if (now >= entry.expiresAt()) {
+                result[0] = OtpVerifyResult.EXPIRED;
+                return entry;
+            }
+            if (matches(entry.otp(), otp)) {
+                result[0] = OtpVerifyResult.VERIFIED;
+                // Keep the send time for the resend throttle, drop the code and the failures
+                return new Entry(null, entry.expiresAt(), entry.sentAt(), 0, 0);
+            }
+            result[0] = OtpVerifyResult.MISMATCH;
+            int failures = entry.failuresAt(now, lockoutWindowMillis);
+            // The window starts at the first failure and is not extended by later ones
+            return new Entry(entry.otp(), entry.expiresAt(), entry.sentAt(), failures + 1,
+                    failures == 0 ? now : entry.failuresSince());
+        });
+        (result[0] == OtpVerifyResult.VERIFIED ? verified : rejected).incrementAndGet();
+        return result[0];
+    }
+
+    /**
+     * Empty the buckets of every tick since the last run
+     */
+    @Scheduled(fixedDelayString = "${otp.memory.tick-ms:1000}")
+    public synchronized void advance() {
+        long now = clock.getAsLong();
+        long currentTick = now / TICK_MILLIS;
+        // After a long pause one full turn visits every bucket
+        long fromTick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1);
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            Set<String> bucket = wheel[(int) (tick & (WHEEL_SLOTS - 1))];
+            for (String contact : bucket) {
+                bucket.remove(contact);
+                Entry remaining = entries.computeIfPresent(contact, (key, entry) -> {
+                    if (entry.removeAt(resendIntervalMillis, lockoutWindowMillis) <= now) {
+                        expired.incrementAndGet();
+                        return null;
+                    }
+                    return entry;
+                });
+                if (remaining != null) {
+                    // Not due yet: a later turn of the wheel, or re-issued since. Never
+                    // back into this tick's bucket, which is being iterated.
+                    schedule(contact, remaining, currentTick + 1);
+                }
+            }
+        }
+        lastTick = currentTick;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", "memory");
+        stats.put("entries", entries.size());
+        stats.put("issued", issued.get());
+        stats.put("throttled", throttled.get());
+        stats.put("verified", verified.get());
+        stats.put("rejected", rejected.get());
+        stats.put("lockedOut", lockedOut.get());
+        stats.put("expired", expired.get());
+        return stats;
+    }
+
+    private void schedule(String contact, Entry entry, long earliestTick) {
+        long removeAt = entry.removeAt(resendIntervalMillis, lockoutWindowMillis);
+        long tick = Math.max(Math.ceilDiv(removeAt, TICK_MILLIS), earliestTick);
+        wheel[(int) (tick & (WHEEL_SLOTS - 1))].add(contact);
+    }
+
+    // Constant time, so response timing does not leak matching digits
+    static boolean matches(String expected, String given) {
+        return given != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8), given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * failures counts wrong guesses for the contact across re-issued codes,
+     * from failuresSince until the lockout window has passed
+     */
+    private record Entry(String otp, long expiresAt, long sentAt, int failures, long failuresSince) {
+
+        int failuresAt(long now, long lockoutWindowMillis) {
+            return now - failuresSince < lockoutWindowMillis ? failures : 0;
+        }
+
+        boolean isLockedOut(long now, int maxAttempts, long lockoutWindowMillis) {
+            return failuresAt(now, lockoutWindowMillis) >= maxAttempts;
+        }
+
+        long removeAt(long resendIntervalMillis, long lockoutWindowMillis) {
+            long removeAt = Math.max(expiresAt, sentAt + resendIntervalMillis);
+            return failures > 0 ? Math.max(removeAt, failuresSince + lockoutWindowMillis) : removeAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.itech.itech_backend.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-process stand-in for the shared product cache tier, for local runs
+ * and tests. Enabled with product.cache.shared.enabled=true.
+ */
+@Component
+@ConditionalOnProperty(name = "product.cache.shared.enabled", havingValue = "true")
+public class InMemoryProductCacheStore implements ProductCacheStore {
+
+    private final Map<String, StoredValue> values = new ConcurrentHashMap<>();
+
+    @Override
+    public byte[] get(String key) {
+        StoredValue stored = values.get(key);
+        if (stored == null) {
+            return null;
+        }
+        if (stored.expiresAt < System.currentTimeMillis()) {
+            values.remove(key, stored);
+            return null;
+        }
+        return stored.value;
+    }
+
+    @Override
+    public void put(String key, byte[] value, Duration ttl) {
+        values.put(key, new StoredValue(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public void delete(String key) {
+        values.remove(key);
+    }
+
+    private record StoredValue(byte[] value, long expiresAt) {
+    }
+}
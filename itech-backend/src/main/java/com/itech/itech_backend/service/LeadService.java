@@ -1,12 +1,15 @@
 package com.itech.itech_backend.service;
 
+import com.itech.itech_backend.dto.CursorPageDto;
 import com.itech.itech_backend.model.Lead;
 import com.itech.itech_backend.model.User;
 import com.itech.itech_backend.enums.LeadStatus;
 import com.itech.itech_backend.enums.LeadPriority;
 import com.itech.itech_backend.repository.LeadRepository;
 import com.itech.itech_backend.repository.UserRepository;
+import com.itech.itech_backend.util.CursorCodec;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -36,6 +39,13 @@ public class LeadService {
         return leadRepository.findByVendor(vendor);
     }
 
+    public CursorPageDto<Lead> getLeadsByVendorCursor(Long vendorId, String cursor, int size) {
+        int pageSize = CursorPageDto.clampSize(size);
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<Lead> rows = leadRepository.findVendorLeadsBefore(vendorId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, Lead::getInquiryDate, Lead::getId);
+    }
+
     public List<Lead> getLeadsByVendorAndStatus(Long vendorId, LeadStatus status) {
         User vendor = userRepository.findById(vendorId)
             .orElseThrow(() -> new RuntimeException("Vendor not found"));
@@ -0,0 +1,110 @@
+package com.itech.itech_backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake-style order numbers: 41 bits of milliseconds since 2024-01-01,
+ * 10 bits of node id and a 12-bit sequence. Numbers are unique across nodes
+ * as long as each node has its own order.number.node-id, increase over time,
+ * and need no database round trip.
+ *
+ * If the clock goes backwards the generator keeps counting from the last
+ * timestamp it issued instead of waiting or failing; when a millisecond's
+ * sequence runs out it moves on to the next millisecond.
+ */
+@Service
+@Slf4j
+public class OrderNumberGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+
+    private static final String PREFIX = "ORD";
+    private static final long CLOCK_REGRESSION_WARN_MS = 100;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // Last issued timestamp and sequence, packed as timestamp << SEQUENCE_BITS | sequence
+    private final AtomicLong state = new AtomicLong();
+    private final AtomicLong clockRegressions = new AtomicLong();
+
+    @Autowired
+    public OrderNumberGenerator(@Value("${order.number.node-id:-1}") long nodeId) {
+        this(nodeId >= 0 ? nodeId : nodeIdFromHost(), System::currentTimeMillis);
+    }
+
+    OrderNumberGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("order.number.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+        log.info("Order number generator using node id {}", nodeId);
+    }
+
+    /**
+     * Order number such as ORD0362757310263934976; zero-padded so numbers sort as text
+     */
+    public String nextOrderNumber() {
+        return PREFIX + String.format("%019d", nextId());
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = state.get();
+            long lastTimestamp = previous >>> SEQUENCE_BITS;
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // A few ms ahead is normal after borrowing; more means the clock was set back
+                if (lastTimestamp - now > CLOCK_REGRESSION_WARN_MS && clockRegressions.incrementAndGet() % 1000 == 1) {
+                    log.warn("Clock is {} ms behind the last issued order number, continuing from it", lastTimestamp - now);
+                }
+                long sequence = previous & MAX_SEQUENCE;
+                // Sequence exhausted for this millisecond: borrow the next one
+                next = sequence < MAX_SEQUENCE ? previous + 1 : (lastTimestamp + 1) << SEQUENCE_BITS;
+            }
+
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & MAX_SEQUENCE;
+                return timestamp << (NODE_BITS + SEQUENCE_BITS) | nodeId << SEQUENCE_BITS | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Fallback when no node id is configured. Distinct hosts usually get
+     * distinct ids, but only a configured id guarantees it.
+     */
+    private static long nodeIdFromHost() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        long nodeId = ((host + ":" + ProcessHandle.current().pid()).hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        log.warn("order.number.node-id is not set, derived node id {} from host {}; set it explicitly when running several nodes",
+                nodeId, host);
+        return nodeId;
+    }
+}
@@ -1,20 +1,30 @@
 package com.itech.itech_backend.service;
 
 import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.dto.CursorPageDto;
 import com.itech.itech_backend.model.*;
 import com.itech.itech_backend.repository.*;
+import com.itech.itech_backend.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -27,95 +37,46 @@ public class OrderService {
     private final CartItemRepository cartItemRepository;
     private final UserRepository userRepository;
     private final UserAddressRepository userAddressRepository;
-    private final ProductRepository productRepository;
     private final PaymentService paymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockReservationService stockReservationService;
+    private final HotInventoryLedger hotInventoryLedger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderNumberGenerator orderNumberGenerator;
 
+    @Value("${checkout.stale-pending.timeout-minutes:15}")
+    private long stalePendingMinutes;
+
+    private static final String ORDER_ITEM_INSERT = "INSERT INTO order_item "
+            + "(order_id, product_id, vendor_id, quantity, price, total_price, product_name, product_description) VALUES ";
+    private static final int ORDER_ITEM_INSERT_CHUNK = 200;
+
+    /**
+     * Checkout runs in three steps so no connection or row lock is held while
+     * Razorpay is called: a short transaction reserves stock and writes the
+     * order, the gateway call runs outside any transaction, and a second short
+     * transaction links the gateway order. If the gateway call or the link
+     * fails, the order is cancelled and its stock released.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Map<String, Object> createOrder(Long userId, CheckoutDto checkoutDto) {
         log.info("Creating order for user: {}", userId);
         
-        // Get user and cart
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Cart not found"));
-        
-        if (cart.getItems().isEmpty()) {
-            throw new RuntimeException("Cart is empty");
-        }
-        
-        // Validate stock and calculate amounts
-        validateCartItems(cart);
-        double totalAmount = cart.getTotalAmount();
-        double shippingAmount = calculateShipping(cart);
-        double taxAmount = calculateTax(totalAmount);
-        double grandTotal = totalAmount + shippingAmount + taxAmount;
-        
-        // Get shipping address
-        UserAddress shippingAddress = getShippingAddress(userId, checkoutDto);
-        
-        // Generate order number
-        String orderNumber = generateOrderNumber();
+        PlacedOrder placed = transactionTemplate.execute(status -> placeOrder(userId, checkoutDto));
         
-        // Create order
-        Order order = Order.builder()
-                .orderNumber(orderNumber)
-                .user(user)
-                .status(Order.OrderStatus.PENDING)
-                .totalAmount(totalAmount)
-                .shippingAmount(shippingAmount)
-                .taxAmount(taxAmount)
-                .grandTotal(grandTotal)
-                .shippingName(shippingAddress.getFullName())
-                .shippingAddress(shippingAddress.getAddressLine1() + 
-                    (shippingAddress.getAddressLine2() != null ? ", " + shippingAddress.getAddressLine2() : ""))
-                .shippingCity(shippingAddress.getCity())
-                .shippingState(shippingAddress.getState())
-                .shippingPincode(shippingAddress.getPincode())
-                .shippingPhone(shippingAddress.getPhone())
-                .paymentStatus(Order.PaymentStatus.PENDING)
-                .paymentMethod(checkoutDto.getPaymentMethod())
-                .build();
-        
-        order = orderRepository.save(order);
-        
-        // Create order items and update product stock
-        createOrderItems(order, cart);
-        
-        // Create payment order if not COD
-        Map<String, Object> response;
-        if (!"COD".equals(checkoutDto.getPaymentMethod())) {
-            response = paymentService.createOrder(
-                orderNumber,
-                BigDecimal.valueOf(grandTotal),
-                user.getEmail(),
-                user.getPhone()
-            );
-            
-            // Update order with Razorpay order ID
-            order.setRazorpayOrderId((String) response.get("razorpayOrderId"));
-            orderRepository.save(order);
+        Map<String, Object> response = new HashMap<>();
+        if (placed.cod()) {
+            response.put("amount", placed.grandTotal());
+            response.put("paymentMethod", "COD");
         } else {
-            // For COD, mark as confirmed
-            order.setStatus(Order.OrderStatus.CONFIRMED);
-            order.setPaymentStatus(Order.PaymentStatus.PENDING);
-            orderRepository.save(order);
-            
-            response = Map.of(
-                "orderId", order.getId(),
-                "orderNumber", orderNumber,
-                "amount", grandTotal,
-                "paymentMethod", "COD"
-            );
+            response.putAll(createPayment(placed));
         }
+        response.put("orderId", placed.orderId());
+        response.put("orderNumber", placed.orderNumber());
+        response.put("orderStatus", (placed.cod() ? Order.OrderStatus.CONFIRMED : Order.OrderStatus.PENDING).name());
         
-        // Clear cart after successful order creation
-        cartItemRepository.deleteByCartId(cart.getId());
-        
-        response.put("orderId", order.getId());
-        response.put("orderNumber", orderNumber);
-        
-        log.info("Order created successfully: {}", orderNumber);
+        log.info("Order created successfully: {}", placed.orderNumber());
         return response;
     }
 
@@ -124,19 +85,21 @@ public class OrderService {
         boolean isValid = paymentService.verifyPayment(razorpayOrderId, razorpayPaymentId, signature);
         
         if (isValid) {
-            // Find order by Razorpay order ID
-            Order order = orderRepository.findAll().stream()
-                    .filter(o -> razorpayOrderId.equals(o.getRazorpayOrderId()))
-                    .findFirst()
+            Order order = orderRepository.findByRazorpayOrderId(razorpayOrderId)
                     .orElseThrow(() -> new RuntimeException("Order not found"));
             
-            // Update order status
-            order.setPaymentStatus(Order.PaymentStatus.PAID);
-            order.setStatus(Order.OrderStatus.CONFIRMED);
-            order.setRazorpayPaymentId(razorpayPaymentId);
-            order.setPaymentTransactionId(razorpayPaymentId);
-            
-            orderRepository.save(order);
+            // Repeated callbacks (client retry plus webhook) find the order already paid and write nothing
+            if (order.getPaymentStatus() == Order.PaymentStatus.PAID) {
+                if (!razorpayPaymentId.equals(order.getRazorpayPaymentId())) {
+                    log.warn("Order {} already paid with payment {}, ignoring payment {}",
+                            order.getOrderNumber(), order.getRazorpayPaymentId(), razorpayPaymentId);
+                }
+                return true;
+            }
+            if (orderRepository.markPaid(order.getId(), razorpayPaymentId, LocalDateTime.now()) == 0) {
+                log.info("Payment for order {} was recorded by a concurrent callback", order.getOrderNumber());
+                return true;
+            }
             
             log.info("Payment verified and order confirmed: {}", order.getOrderNumber());
             return true;
@@ -153,6 +116,13 @@ public class OrderService {
         return orderRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
     }
 
+    public CursorPageDto<Order> getUserOrdersByCursor(Long userId, String cursor, int size) {
+        int pageSize = CursorPageDto.clampSize(size);
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<Order> rows = orderRepository.findUserOrdersBefore(userId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, Order::getCreatedAt, Order::getId);
+    }
+
     public Order getOrderById(Long orderId) {
         return orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -185,10 +155,158 @@ public class OrderService {
         return orderRepository.findOrdersByVendorId(vendorId, pageable);
     }
 
+    public CursorPageDto<Order> getVendorOrdersByCursor(Long vendorId, String cursor, int size) {
+        int pageSize = CursorPageDto.clampSize(size);
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<Order> rows = orderRepository.findVendorOrdersBefore(vendorId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+        return CursorPageDto.of(rows, pageSize, Order::getCreatedAt, Order::getId);
+    }
+
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
+    /**
+     * First checkout transaction: reserve stock and write the order and its
+     * items. COD orders are complete here; online orders stay PENDING and
+     * keep the cart until the gateway order is linked.
+     */
+    private PlacedOrder placeOrder(Long userId, CheckoutDto checkoutDto) {
+        // Get user and cart, with items, products and vendors in one query
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Cart not found"));
+        
+        if (cart.getItems().isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+        
+        // Validate stock and calculate amounts
+        validateCartItems(cart);
+        double totalAmount = cart.getTotalAmount();
+        double shippingAmount = calculateShipping(cart);
+        double taxAmount = calculateTax(totalAmount);
+        double grandTotal = totalAmount + shippingAmount + taxAmount;
+        
+        // Get shipping address
+        UserAddress shippingAddress = getShippingAddress(userId, checkoutDto);
+        
+        // Take stock before anything else is written
+        reserveStock(user, cart);
+        
+        boolean cod = "COD".equals(checkoutDto.getPaymentMethod());
+        
+        // Create order
+        Order order = Order.builder()
+                .orderNumber(orderNumberGenerator.nextOrderNumber())
+                .user(user)
+                .status(cod ? Order.OrderStatus.CONFIRMED : Order.OrderStatus.PENDING)
+                .totalAmount(totalAmount)
+                .shippingAmount(shippingAmount)
+                .taxAmount(taxAmount)
+                .grandTotal(grandTotal)
+                .shippingName(shippingAddress.getFullName())
+                .shippingAddress(shippingAddress.getAddressLine1() + 
+                    (shippingAddress.getAddressLine2() != null ? ", " + shippingAddress.getAddressLine2() : ""))
+                .shippingCity(shippingAddress.getCity())
+                .shippingState(shippingAddress.getState())
+                .shippingPincode(shippingAddress.getPincode())
+                .shippingPhone(shippingAddress.getPhone())
+                .paymentStatus(Order.PaymentStatus.PENDING)
+                .paymentMethod(checkoutDto.getPaymentMethod())
+                .build();
+        
+        order = orderRepository.save(order);
+        insertOrderItems(order, cart);
+        
+        List<Long> cartItemIds = cart.getItems().stream().map(CartItem::getId).toList();
+        if (cod) {
+            cartItemRepository.deleteByCartId(cart.getId());
+            eventPublisher.publishEvent(new CartChangedEvent(userId));
+        }
+        
+        return new PlacedOrder(order.getId(), userId, order.getOrderNumber(), grandTotal,
+                user.getEmail(), user.getPhone(), cod, cartItemIds);
+    }
+
+    /**
+     * Create the Razorpay order outside any transaction, then link it to the
+     * placed order. Any failure cancels the order and returns its stock.
+     */
+    private Map<String, Object> createPayment(PlacedOrder placed) {
+        Map<String, Object> payment;
+        try {
+            payment = paymentService.createOrder(
+                placed.orderNumber(),
+                BigDecimal.valueOf(placed.grandTotal()),
+                placed.email(),
+                placed.phone()
+            );
+        } catch (RuntimeException e) {
+            log.warn("Payment setup failed for order {}, cancelling it", placed.orderNumber());
+            cancelPendingOrder(placed.orderId());
+            throw e;
+        }
+        
+        String razorpayOrderId = (String) payment.get("razorpayOrderId");
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (orderRepository.attachRazorpayOrder(placed.orderId(), razorpayOrderId, LocalDateTime.now()) == 0) {
+                    throw new RuntimeException("Order " + placed.orderNumber() + " is no longer awaiting payment");
+                }
+                cartItemRepository.deleteAllByIdInBatch(placed.cartItemIds());
+                eventPublisher.publishEvent(new CartChangedEvent(placed.userId()));
+            });
+        } catch (RuntimeException e) {
+            // The unpaid Razorpay order simply expires on the gateway side
+            log.warn("Failed to link Razorpay order {} to order {}, cancelling it",
+                    razorpayOrderId, placed.orderNumber(), e);
+            cancelPendingOrder(placed.orderId());
+            throw e;
+        }
+        return payment;
+    }
+
+    /**
+     * Compensation for a checkout that never got a payment: cancel the order
+     * and put its stock back. Does nothing if the order has moved on.
+     */
+    private void cancelPendingOrder(Long orderId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (orderRepository.cancelUnpaid(orderId, LocalDateTime.now()) == 0) {
+                    return;
+                }
+                Map<Long, Integer> quantities = new HashMap<>();
+                jdbcTemplate.query("SELECT product_id, quantity FROM order_item WHERE order_id = ?",
+                        rs -> {
+                            quantities.merge(rs.getLong("product_id"), rs.getInt("quantity"), Integer::sum);
+                        }, orderId);
+                releaseStock(quantities);
+            });
+        } catch (RuntimeException e) {
+            // Left PENDING without a gateway order; the stale checkout sweep retries it
+            log.error("Failed to cancel order {} after payment setup failed", orderId, e);
+        }
+    }
+
+    /**
+     * Cancel online checkouts that never got a Razorpay order, e.g. because the
+     * instance died between the checkout steps
+     */
+    @Scheduled(fixedDelayString = "${checkout.stale-pending.sweep-interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void cancelStalePendingCheckouts() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(stalePendingMinutes);
+        List<Long> orderIds = orderRepository.findStalePendingCheckoutIds(cutoff);
+        if (!orderIds.isEmpty()) {
+            log.info("Cancelling {} checkouts left without a payment order", orderIds.size());
+            orderIds.forEach(this::cancelPendingOrder);
+        }
+    }
+
     private void validateCartItems(Cart cart) {
         for (CartItem item : cart.getItems()) {
             Product product = item.getProduct();
@@ -248,32 +366,66 @@ public class OrderService {
         }
     }
 
-    private String generateOrderNumber() {
-        return "ORD" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
+    /**
+     * Take stock for every cart line: hot products from the in-memory ledger,
+     * the rest with one batch of conditional decrements
+     */
+    private void reserveStock(User user, Cart cart) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        Map<Long, Integer> hotQuantities = new HashMap<>();
+        quantities.entrySet().removeIf(entry -> {
+            if (hotInventoryLedger.isHot(entry.getKey())) {
+                hotQuantities.put(entry.getKey(), entry.getValue());
+                return true;
+            }
+            return false;
+        });
+        stockReservationService.reserve(quantities);
+        hotInventoryLedger.commit(user.getId(), hotQuantities);
+        
+        quantities.putAll(hotQuantities);
+        quantities.keySet().forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
     }
 
-    private void createOrderItems(Order order, Cart cart) {
-        for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
-            
-            // Create order item
-            OrderItem orderItem = OrderItem.builder()
-                    .order(order)
-                    .product(product)
-                    .vendor(product.getVendor())
-                    .quantity(cartItem.getQuantity())
-                    .price(cartItem.getPrice())
-                    .totalPrice(cartItem.getSubtotal())
-                    .productName(product.getName())
-                    .productDescription(product.getDescription())
-                    .build();
-            
-            order.getItems().add(orderItem);
-            
-            // Update product stock and order count
-            product.setStock(product.getStock() - cartItem.getQuantity());
-            product.setOrderCount(product.getOrderCount() + cartItem.getQuantity());
-            productRepository.save(product);
+    private void releaseStock(Map<Long, Integer> quantities) {
+        Map<Long, Integer> hotQuantities = new HashMap<>();
+        Map<Long, Integer> databaseQuantities = new HashMap<>();
+        quantities.forEach((productId, quantity) ->
+                (hotInventoryLedger.isHot(productId) ? hotQuantities : databaseQuantities).put(productId, quantity));
+        stockReservationService.release(databaseQuantities);
+        hotInventoryLedger.returnSale(hotQuantities);
+        quantities.keySet().forEach(productId -> eventPublisher.publishEvent(new ProductChangedEvent(productId)));
+    }
+
+    /**
+     * Write all order lines with multi-row INSERTs instead of one IDENTITY insert per item
+     */
+    private void insertOrderItems(Order order, Cart cart) {
+        List<CartItem> items = cart.getItems();
+        for (int from = 0; from < items.size(); from += ORDER_ITEM_INSERT_CHUNK) {
+            List<CartItem> chunk = items.subList(from, Math.min(from + ORDER_ITEM_INSERT_CHUNK, items.size()));
+            StringBuilder sql = new StringBuilder(ORDER_ITEM_INSERT);
+            List<Object> args = new ArrayList<>(chunk.size() * 8);
+            for (CartItem cartItem : chunk) {
+                Product product = cartItem.getProduct();
+                sql.append(args.isEmpty() ? "" : ", ").append("(?, ?, ?, ?, ?, ?, ?, ?)");
+                args.add(order.getId());
+                args.add(product.getId());
+                args.add(product.getVendor().getId());
+                args.add(cartItem.getQuantity());
+                args.add(cartItem.getPrice());
+                args.add(cartItem.getSubtotal());
+                args.add(product.getName());
+                args.add(product.getDescription());
+            }
+            jdbcTemplate.update(sql.toString(), args.toArray());
         }
     }
+
+    private record PlacedOrder(Long orderId, Long userId, String orderNumber, double grandTotal,
+                               String email, String phone, boolean cod, List<Long> cartItemIds) {
+    }
 }
@@ -0,0 +1,35 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.OtpVerifyResult;
+
+import java.util.Map;
+
+/**
+ * Where one-time passwords live between sending and verification, keyed by
+ * the email or phone they were sent to. otp.store selects the in-memory
+ * store (default, single node) or the database store (shared by all nodes).
+ *
+ * Both enforce the same rules: an OTP expires after otp.ttl-seconds, and a
+ * contact can only be sent a new one every otp.resend-interval-seconds.
+ * Wrong guesses are counted per contact rather than per OTP, so requesting a
+ * new code does not reset them: after otp.max-attempts of them within
+ * otp.lockout-window-seconds of the first, the contact can neither be sent
+ * nor verify an OTP until that window has passed.
+ */
+public interface OtpStore {
+
+    /**
+     * Store a new OTP for the contact, replacing any earlier one
+     *
+     * @return false, storing nothing, if the contact was sent an OTP too recently or is locked out
+     */
+    boolean issue(String contact, String otp);
+
+    /**
+     * Check an OTP; a correct one is consumed and cannot be used again, and
+     * clears the contact's failed attempts
+     */
+    OtpVerifyResult verify(String contact, String otp);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,52 @@
+package com.itech.itech_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Brings an existing otp_verification table to one row per contact. Older
+ * code could insert several rows for a contact, and Hibernate's schema update
+ * cannot add the unique key while they exist, so the older duplicates are
+ * deleted (keeping the newest) and the key is added here instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OtpTableMigration implements CommandLineRunner {
+
+    static final String UNIQUE_KEY = "uk_otp_verification_email_or_phone";
+    private static final String LEGACY_INDEX = "idx_otp_verification_email_or_phone";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        try {
+            int removed = jdbcTemplate.update("DELETE older FROM otp_verification older " +
+                    "JOIN otp_verification newer ON newer.email_or_phone = older.email_or_phone AND newer.id > older.id");
+            if (removed > 0) {
+                log.info("Removed {} duplicate OTP rows", removed);
+            }
+            if (!hasIndex(UNIQUE_KEY)) {
+                jdbcTemplate.execute("ALTER TABLE otp_verification ADD CONSTRAINT " + UNIQUE_KEY + " UNIQUE (email_or_phone)");
+                log.info("Added unique key {} to otp_verification", UNIQUE_KEY);
+            }
+            // The unique key serves the lookups the old index did
+            if (hasIndex(LEGACY_INDEX)) {
+                jdbcTemplate.execute("ALTER TABLE otp_verification DROP INDEX " + LEGACY_INDEX);
+            }
+        } catch (Exception e) {
+            log.error("OTP table migration failed", e);
+        }
+    }
+
+    private boolean hasIndex(String name) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.statistics " +
+                "WHERE table_schema = DATABASE() AND table_name = 'otp_verification' AND index_name = ?",
+                Integer.class, name);
+        return count != null && count > 0;
+    }
+}
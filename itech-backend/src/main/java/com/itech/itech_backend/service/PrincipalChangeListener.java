@@ -0,0 +1,35 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.PrincipalTable;
+import com.itech.itech_backend.model.Admins;
+import com.itech.itech_backend.model.User;
+import com.itech.itech_backend.model.Vendors;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA listener on the account entities that keeps {@link PrincipalDirectory}'s
+ * cache in step with profile, password and role changes, wherever they are made
+ */
+@Component
+@RequiredArgsConstructor
+public class PrincipalChangeListener {
+
+    private final PrincipalDirectory principalDirectory;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof User user) {
+            principalDirectory.evict(PrincipalTable.USER, user.getId(), user.getEmail(), user.getPhone());
+        } else if (entity instanceof Vendors vendor) {
+            principalDirectory.evict(PrincipalTable.VENDOR, vendor.getId(), vendor.getEmail(), vendor.getPhone());
+        } else if (entity instanceof Admins admin) {
+            principalDirectory.evict(PrincipalTable.ADMIN, admin.getId(), admin.getEmail(), admin.getPhone());
+        }
+    }
+}
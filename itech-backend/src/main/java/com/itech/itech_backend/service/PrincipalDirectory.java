@@ -0,0 +1,126 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.PrincipalTable;
+import com.itech.itech_backend.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves an email or phone to the account it belongs to, across the user,
+ * vendors and admins tables, with one query. Each branch of the UNION matches
+ * a single unique column, so every probe is an index lookup rather than the
+ * OR scan of findByEmailOrPhone, and users win over vendors over admins as
+ * before. Hits are kept in a short TTL cache that PrincipalChangeListener
+ * clears whenever one of those entities is saved or deleted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PrincipalDirectory {
+
+    private static final String LOOKUP_SQL =
+            "SELECT source, id, role, password FROM (" +
+            " SELECT 0 AS source, id, role, password FROM `user` WHERE email = :identifier" +
+            " UNION ALL SELECT 0, id, role, password FROM `user` WHERE phone = :identifier" +
+            " UNION ALL SELECT 1, id, role, password FROM vendors WHERE email = :identifier" +
+            " UNION ALL SELECT 1, id, role, password FROM vendors WHERE phone = :identifier" +
+            " UNION ALL SELECT 2, id, role, password FROM admins WHERE email = :identifier" +
+            " UNION ALL SELECT 2, id, role, password FROM admins WHERE phone = :identifier" +
+            ") principals ORDER BY source, id LIMIT 1";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${principal.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${principal.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    private BoundedCache<String, Principal> cache;
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(cacheMaxSize, Duration.ofSeconds(cacheTtlSeconds));
+    }
+
+    /**
+     * The account for an email or phone; misses are not cached, so a new
+     * registration is visible at once
+     */
+    public Optional<Principal> find(String emailOrPhone) {
+        if (emailOrPhone == null || emailOrPhone.isBlank()) {
+            return Optional.empty();
+        }
+        Principal principal = cache.get(emailOrPhone);
+        if (principal != null) {
+            return Optional.of(principal);
+        }
+        List<Principal> found = jdbcTemplate.query(LOOKUP_SQL, new MapSqlParameterSource("identifier", emailOrPhone),
+                (rs, rowNum) -> new Principal(
+                        PrincipalTable.values()[rs.getInt("source")],
+                        rs.getLong("id"),
+                        rs.getString("role"),
+                        rs.getString("password")));
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        cache.put(emailOrPhone, found.get(0));
+        return Optional.of(found.get(0));
+    }
+
+    /**
+     * Id of the user-table account for an email or phone
+     */
+    public Long requireUserId(String emailOrPhone) {
+        return find(emailOrPhone)
+                .filter(principal -> principal.table() == PrincipalTable.USER)
+                .map(Principal::id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    /**
+     * Forget a changed account under any identifier it was cached by, and
+     * under its current email and phone, which may now resolve differently.
+     * Done again after commit so a lookup racing the transaction cannot
+     * cache the old row.
+     */
+    public void evict(PrincipalTable table, Long id, String email, String phone) {
+        Runnable evict = () -> {
+            cache.invalidateIf(principal -> principal.table() == table && principal.id().equals(id));
+            if (email != null) {
+                cache.invalidate(email);
+            }
+            if (phone != null) {
+                cache.invalidate(phone);
+            }
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return cache.getStats();
+    }
+
+    public record Principal(PrincipalTable table, Long id, String role, String passwordHash) {
+    }
+}
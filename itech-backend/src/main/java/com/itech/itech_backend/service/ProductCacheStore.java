@@ -0,0 +1,19 @@
+package com.itech.itech_backend.service;
+
+import java.time.Duration;
+
+/**
+ * Shared cache tier behind the per-instance product cache, keyed by string and
+ * holding serialized values, e.g. a Redis or Memcached client.
+ */
+public interface ProductCacheStore {
+
+    /**
+     * Stored value, or null when missing or expired
+     */
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void delete(String key);
+}
@@ -0,0 +1,7 @@
+package com.itech.itech_backend.service;
+
+/**
+ * Published whenever a product row is written or deleted, so cached copies can be dropped
+ */
+public record ProductChangedEvent(Long productId) {
+}
@@ -0,0 +1,145 @@
+package com.itech.itech_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.itech.itech_backend.dto.ProductDetailDto;
+import com.itech.itech_backend.repository.ProductRepository;
+import com.itech.itech_backend.util.BoundedCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Product detail reads through a bounded per-instance cache, then the shared
+ * tier when one is configured, then the database. Entries are dropped when a
+ * ProductChangedEvent commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductDetailCache {
+
+    private static final String KEY_PREFIX = "product:detail:";
+
+    private final ProductRepository productRepository;
+    private final ObjectProvider<ProductCacheStore> sharedStoreProvider;
+    private final ObjectMapper objectMapper;
+
+    @Value("${product.cache.local.max-size:10000}")
+    private int localMaxSize;
+
+    @Value("${product.cache.local.ttl-seconds:60}")
+    private long localTtlSeconds;
+
+    @Value("${product.cache.shared.ttl-seconds:600}")
+    private long sharedTtlSeconds;
+
+    private BoundedCache<Long, ProductDetailDto> localCache;
+    private ProductCacheStore sharedStore;
+
+    private final AtomicLong sharedHits = new AtomicLong();
+    private final AtomicLong sharedErrors = new AtomicLong();
+    // Bumped on every eviction so a load that raced one is not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        localCache = new BoundedCache<>(localMaxSize, Duration.ofSeconds(localTtlSeconds));
+        sharedStore = sharedStoreProvider.getIfAvailable();
+        log.info("Product detail cache: local max {} entries, shared tier {}",
+                localMaxSize, sharedStore != null ? sharedStore.getClass().getSimpleName() : "disabled");
+    }
+
+    public ProductDetailDto get(Long productId) {
+        ProductDetailDto cached = localCache.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long invalidationsBefore = invalidations.get();
+        ProductDetailDto detail = readShared(productId);
+        boolean fromShared = detail != null;
+        if (detail == null) {
+            detail = productRepository.findDetailById(productId)
+                    .map(ProductDetailDto::from)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
+        }
+
+        if (invalidations.get() == invalidationsBefore) {
+            localCache.put(productId, detail);
+            if (!fromShared) {
+                writeShared(productId, detail);
+            }
+        }
+        return detail;
+    }
+
+    public void evict(Long productId) {
+        invalidations.incrementAndGet();
+        localCache.invalidate(productId);
+        if (sharedStore != null) {
+            try {
+                sharedStore.delete(KEY_PREFIX + productId);
+            } catch (Exception e) {
+                sharedErrors.incrementAndGet();
+                log.warn("Failed to evict product {} from shared cache", productId, e);
+            }
+        }
+    }
+
+    /**
+     * Runs after the writing transaction commits, or straight away when there is none
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        evict(event.productId());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(localCache.getStats());
+        stats.put("sharedTier", sharedStore != null);
+        stats.put("sharedHits", sharedHits.get());
+        stats.put("sharedErrors", sharedErrors.get());
+        return stats;
+    }
+
+    private ProductDetailDto readShared(Long productId) {
+        if (sharedStore == null) {
+            return null;
+        }
+        try {
+            byte[] value = sharedStore.get(KEY_PREFIX + productId);
+            if (value == null) {
+                return null;
+            }
+            sharedHits.incrementAndGet();
+            return objectMapper.readValue(value, ProductDetailDto.class);
+        } catch (Exception e) {
+            // The shared tier is an optimization; fall through to the database
+            sharedErrors.incrementAndGet();
+            log.warn("Failed to read product {} from shared cache", productId, e);
+            return null;
+        }
+    }
+
+    private void writeShared(Long productId, ProductDetailDto detail) {
+        if (sharedStore == null) {
+            return;
+        }
+        try {
+            sharedStore.put(KEY_PREFIX + productId, objectMapper.writeValueAsBytes(detail),
+                    Duration.ofSeconds(sharedTtlSeconds));
+        } catch (Exception e) {
+            sharedErrors.incrementAndGet();
+            log.warn("Failed to write product {} to shared cache", productId, e);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Facet counts (category, brand, free shipping, price bucket) over listed
+ * products. Each facet value keeps a bitset posting list of product ordinals,
+ * so filters are bitwise ANDs and counting only walks the filtered set.
+ * Kept in sync by ProductService.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetService {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int NONE = -1;
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.facets.enabled:true}")
+    private boolean facetsEnabled;
+
+    @Value("${product.facets.price-buckets:500,1000,5000,10000,50000}")
+    private double[] priceBoundaries;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dense ordinal per product so posting lists stay compact
+    private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    private final FacetDimension categories = new FacetDimension();
+    private final FacetDimension brands = new FacetDimension();
+    private final FacetDimension priceBuckets = new FacetDimension();
+    private final BitSet freeShipping = new BitSet();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return facetsEnabled && ready;
+    }
+
+    @PostConstruct
+    void init() {
+        // Bucket ranges are used before the first rebuild and when facets are disabled
+        Arrays.sort(priceBoundaries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!facetsEnabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ordinalByProductId.clear();
+            live.clear();
+            categories.clear();
+            brands.clear();
+            priceBuckets.clear();
+            freeShipping.clear();
+            for (int bucket = 0; bucket <= priceBoundaries.length; bucket++) {
+                priceBuckets.valueOrdinal(priceBucketLabel(bucket), priceBucketLabel(bucket));
+            }
+
+            productRepository.forEachListed(REBUILD_BATCH_SIZE, this::addDocument);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product facets built for {} products in {} ms", live.cardinality(), System.currentTimeMillis() - started);
+    }
+
+    public void index(Product product) {
+        if (!facetsEnabled || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            if (product.isApproved() && product.isActive()) {
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (!facetsEnabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lower and upper price bound of a bucket; the upper bound is null for the last bucket
+     */
+    public Double[] priceBucketRange(int bucket) {
+        if (bucket < 0 || bucket > priceBoundaries.length) {
+            throw new IllegalArgumentException("Unknown price bucket: " + bucket);
+        }
+        Double min = bucket == 0 ? 0.0 : priceBoundaries[bucket - 1];
+        Double max = bucket == priceBoundaries.length ? null : priceBoundaries[bucket];
+        return new Double[]{min, max};
+    }
+
+    /**
+     * Count listed products per facet value. Each dimension is counted against
+     * the other dimensions' filters only, so a buyer who picked one brand still
+     * sees how many products the other brands have.
+     */
+    public FacetCounts count(String category, String brand, Boolean freeShippingOnly, Integer priceBucket) {
+        lock.readLock().lock();
+        try {
+            BitSet categoryFilter = categories.postings(category);
+            BitSet brandFilter = brands.postings(brand);
+            BitSet shippingFilter = Boolean.TRUE.equals(freeShippingOnly) ? freeShipping : null;
+            BitSet priceFilter = priceBucket != null ? priceBuckets.postings(priceBucket) : null;
+
+            Map<String, Long> categoryCounts = categories.count(filter(brandFilter, shippingFilter, priceFilter), false);
+            Map<String, Long> brandCounts = brands.count(filter(categoryFilter, shippingFilter, priceFilter), false);
+            // Price buckets keep empty entries so a bucket's position is its index
+            Map<String, Long> priceCounts = priceBuckets.count(filter(categoryFilter, brandFilter, shippingFilter), true);
+
+            BitSet shippingBase = filter(categoryFilter, brandFilter, priceFilter);
+            long total = shippingBase.cardinality();
+            shippingBase.and(freeShipping);
+            long freeShippingCount = shippingBase.cardinality();
+
+            return new FacetCounts(categoryCounts, brandCounts, priceCounts,
+                    Map.of("true", freeShippingCount, "false", total - freeShippingCount));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The same counts as {@link #count} with GROUP BY queries, for requests
+     * that arrive before the in-memory index is built or when it is disabled
+     */
+    public FacetCounts countFromDatabase(String category, String brand, Boolean freeShippingOnly, Integer priceBucket) {
+        String categoryKey = category != null && !category.isEmpty() ? category.toLowerCase(Locale.ROOT) : null;
+        String brandKey = brand != null && !brand.isEmpty() ? brand.trim().toLowerCase(Locale.ROOT) : null;
+        boolean shippingOnly = Boolean.TRUE.equals(freeShippingOnly);
+        Double[] priceRange = priceBucket != null ? priceBucketRange(priceBucket) : new Double[]{null, null};
+
+        Map<String, Long> categoryCounts = toCounts(productRepository.countFacetCategories(
+                null, brandKey, shippingOnly, priceRange[0], priceRange[1]));
+        Map<String, Long> brandCounts = toCounts(productRepository.countFacetBrands(
+                categoryKey, null, shippingOnly, priceRange[0], priceRange[1]));
+
+        Map<String, Long> priceCounts = new LinkedHashMap<>();
+        for (int bucket = 0; bucket <= priceBoundaries.length; bucket++) {
+            Double[] range = priceBucketRange(bucket);
+            Object[] row = productRepository.countFacetMatches(categoryKey, brandKey, shippingOnly, range[0], range[1]).get(0);
+            priceCounts.put(priceBucketLabel(bucket), ((Number) row[0]).longValue());
+        }
+
+        Object[] matches = productRepository.countFacetMatches(categoryKey, brandKey, false, priceRange[0], priceRange[1]).get(0);
+        long total = ((Number) matches[0]).longValue();
+        long freeShippingCount = ((Number) matches[1]).longValue();
+
+        return new FacetCounts(categoryCounts, brandCounts, priceCounts,
+                Map.of("true", freeShippingCount, "false", total - freeShippingCount));
+    }
+
+    private static Map<String, Long> toCounts(List<Object[]> rows) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            counts.merge((String) row[0], ((Number) row[1]).longValue(), Long::sum);
+        }
+        return counts;
+    }
+
+    private BitSet filter(BitSet... filters) {
+        BitSet result = (BitSet) live.clone();
+        for (BitSet filter : filters) {
+            if (filter != null) {
+                result.and(filter);
+            }
+        }
+        return result;
+    }
+
+    private void addDocument(Product product) {
+        int ordinal = ordinalByProductId.computeIfAbsent(product.getId(), id -> ordinalByProductId.size());
+        live.set(ordinal);
+        if (product.getCategory() != null && product.getCategory().getName() != null) {
+            categories.add(ordinal, product.getCategory().getName());
+        }
+        if (product.getBrand() != null && !product.getBrand().isBlank()) {
+            brands.add(ordinal, product.getBrand().trim());
+        }
+        if (product.getPrice() != null) {
+            priceBuckets.add(ordinal, priceBucketLabel(priceBucketOf(product.getPrice())));
+        }
+        if (product.isFreeShipping()) {
+            freeShipping.set(ordinal);
+        }
+    }
+
+    private void removeDocument(Long productId) {
+        Integer ordinal = ordinalByProductId.get(productId);
+        if (ordinal == null || !live.get(ordinal)) {
+            return;
+        }
+        live.clear(ordinal);
+        categories.remove(ordinal);
+        brands.remove(ordinal);
+        priceBuckets.remove(ordinal);
+        freeShipping.clear(ordinal);
+    }
+
+    private int priceBucketOf(double price) {
+        int bucket = 0;
+        while (bucket < priceBoundaries.length && price >= priceBoundaries[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private String priceBucketLabel(int bucket) {
+        Double[] range = priceBucketRange(bucket);
+        return range[1] == null
+                ? String.format(Locale.ROOT, "%.0f+", range[0])
+                : String.format(Locale.ROOT, "%.0f-%.0f", range[0], range[1]);
+    }
+
+    public record FacetCounts(Map<String, Long> categories, Map<String, Long> brands,
+                              Map<String, Long> priceBuckets, Map<String, Long> freeShipping) {
+    }
+
+    /**
+     * Posting lists for one facet dimension plus a forward array of each
+     * product's value, used for counting without touching every posting list
+     */
+    private static final class FacetDimension {
+        private final Map<String, Integer> valueOrdinals = new HashMap<>();
+        private final List<String> displayValues = new ArrayList<>();
+        private final List<BitSet> postings = new ArrayList<>();
+        private int[] valueByDocument = new int[0];
+
+        int valueOrdinal(String key, String display) {
+            return valueOrdinals.computeIfAbsent(key, k -> {
+                displayValues.add(display);
+                postings.add(new BitSet());
+                return displayValues.size() - 1;
+            });
+        }
+
+        void add(int document, String value) {
+            int valueOrdinal = valueOrdinal(value.toLowerCase(Locale.ROOT), value);
+            postings.get(valueOrdinal).set(document);
+            if (document >= valueByDocument.length) {
+                int oldLength = valueByDocument.length;
+                valueByDocument = Arrays.copyOf(valueByDocument, Math.max(document + 1, oldLength * 2));
+                Arrays.fill(valueByDocument, oldLength, valueByDocument.length, NONE);
+            }
+            valueByDocument[document] = valueOrdinal;
+        }
+
+        void remove(int document) {
+            if (document < valueByDocument.length && valueByDocument[document] != NONE) {
+                postings.get(valueByDocument[document]).clear(document);
+                valueByDocument[document] = NONE;
+            }
+        }
+
+        BitSet postings(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            Integer valueOrdinal = valueOrdinals.get(value.toLowerCase(Locale.ROOT));
+            return valueOrdinal != null ? postings.get(valueOrdinal) : new BitSet();
+        }
+
+        BitSet postings(int valueOrdinal) {
+            return valueOrdinal >= 0 && valueOrdinal < postings.size() ? postings.get(valueOrdinal) : new BitSet();
+        }
+
+        /**
+         * Per-value counts over the given documents, most frequent first unless
+         * empty values are kept, in which case value order is preserved
+         */
+        Map<String, Long> count(BitSet documents, boolean keepEmpty) {
+            long[] counts = new long[displayValues.size()];
+            for (int document = documents.nextSetBit(0); document >= 0; document = documents.nextSetBit(document + 1)) {
+                if (document < valueByDocument.length && valueByDocument[document] != NONE) {
+                    counts[valueByDocument[document]]++;
+                }
+            }
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < counts.length; i++) {
+                if (keepEmpty || counts[i] > 0) {
+                    values.add(i);
+                }
+            }
+            if (!keepEmpty) {
+                values.sort((a, b) -> Long.compare(counts[b], counts[a]));
+            }
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int value : values) {
+                result.put(displayValues.get(value), counts[value]);
+            }
+            return result;
+        }
+
+        void clear() {
+            valueOrdinals.clear();
+            displayValues.clear();
+            postings.clear();
+            valueByDocument = new int[0];
+        }
+    }
+}
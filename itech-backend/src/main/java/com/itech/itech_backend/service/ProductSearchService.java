@@ -0,0 +1,252 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.repository.ProductRepository;
+import com.itech.itech_backend.util.SearchTextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over listed products with BM25 ranking and
+ * prefix matching on the last query term. Kept in sync by ProductService.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchService {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int TAGS_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.search.index.enabled:true}")
+    private boolean indexEnabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (productId -> weighted term frequency)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, Map<String, Integer>> documentTerms = new HashMap<>();
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalDocumentLength;
+
+    private volatile boolean ready;
+
+    /**
+     * Whether searches can be answered from the index. Until the initial
+     * build finishes callers should fall back to the database.
+     */
+    public boolean isReady() {
+        return indexEnabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!indexEnabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTerms.clear();
+            documentLengths.clear();
+            totalDocumentLength = 0;
+
+            productRepository.forEachListed(REBUILD_BATCH_SIZE, this::addDocument);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built with {} products and {} terms in {} ms",
+                documentTerms.size(), postings.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Add or refresh a product. Products that are not approved and active are removed.
+     */
+    public void index(Product product) {
+        if (!indexEnabled || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(product.getId());
+            if (product.isApproved() && product.isActive()) {
+                addDocument(product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        if (!indexEnabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rank listed products against the query. Returns the ids for the requested
+     * window, best match first, together with the total number of matches.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> terms = SearchTextAnalyzer.analyze(query);
+        if (terms.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        // While the user is still typing the last word, also match it as a prefix
+        List<String> rawTokens = SearchTextAnalyzer.tokenize(query);
+        String prefix = !query.endsWith(" ") && !rawTokens.isEmpty() ? rawTokens.get(rawTokens.size() - 1) : null;
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documentTerms.size();
+            if (documentCount == 0) {
+                return new SearchResult(List.of(), 0);
+            }
+            double averageLength = (double) totalDocumentLength / documentCount;
+            Map<Long, Double> scores = new HashMap<>();
+
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                Map<String, Map<Long, Integer>> matchedTerms = new HashMap<>();
+                Map<Long, Integer> exact = postings.get(term);
+                if (exact != null) {
+                    matchedTerms.put(term, exact);
+                }
+                if (prefix != null && i == terms.size() - 1) {
+                    matchedTerms.putAll(prefixMatches(prefix));
+                }
+
+                // A document scores once per query term, using its best matching expansion
+                Map<Long, Double> termScores = new HashMap<>();
+                for (Map<Long, Integer> docs : matchedTerms.values()) {
+                    double idf = Math.log(1 + (documentCount - docs.size() + 0.5) / (docs.size() + 0.5));
+                    for (Map.Entry<Long, Integer> doc : docs.entrySet()) {
+                        int documentLength = documentLengths.get(doc.getKey());
+                        double tf = doc.getValue();
+                        double score = idf * (tf * (K1 + 1))
+                                / (tf + K1 * (1 - B + B * documentLength / averageLength));
+                        termScores.merge(doc.getKey(), score, Math::max);
+                    }
+                }
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            return new SearchResult(topHits(scores, offset, limit), scores.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Map<Long, Integer>> prefixMatches(String prefix) {
+        Map<String, Map<Long, Integer>> matches = new HashMap<>();
+        for (Map.Entry<String, Map<Long, Integer>> entry
+                : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+            if (matches.size() >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            matches.put(entry.getKey(), entry.getValue());
+        }
+        return matches;
+    }
+
+    private List<Long> topHits(Map<Long, Double> scores, int offset, int limit) {
+        int wanted = offset + limit;
+        if (offset >= scores.size() || limit <= 0) {
+            return List.of();
+        }
+        // Min-heap of the best offset+limit hits, ties broken by newer (higher) id
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(
+                (a, b) -> a.getValue().equals(b.getValue())
+                        ? Long.compare(a.getKey(), b.getKey())
+                        : Double.compare(a.getValue(), b.getValue()));
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > wanted) {
+                heap.poll();
+            }
+        }
+        List<Long> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(heap.poll().getKey());
+        }
+        Collections.reverse(ranked);
+        return ranked.subList(Math.min(offset, ranked.size()), ranked.size());
+    }
+
+    private void addDocument(Product product) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        addField(termFrequencies, product.getName(), NAME_WEIGHT);
+        addField(termFrequencies, product.getBrand(), BRAND_WEIGHT);
+        addField(termFrequencies, product.getTags(), TAGS_WEIGHT);
+        addField(termFrequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        if (termFrequencies.isEmpty()) {
+            return;
+        }
+
+        int documentLength = 0;
+        for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(product.getId(), entry.getValue());
+            documentLength += entry.getValue();
+        }
+        documentTerms.put(product.getId(), termFrequencies);
+        documentLengths.put(product.getId(), documentLength);
+        totalDocumentLength += documentLength;
+    }
+
+    private void addField(Map<String, Integer> termFrequencies, String text, int weight) {
+        for (String term : SearchTextAnalyzer.analyze(text)) {
+            termFrequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private void removeDocument(Long productId) {
+        Map<String, Integer> termFrequencies = documentTerms.remove(productId);
+        if (termFrequencies == null) {
+            return;
+        }
+        for (String term : termFrequencies.keySet()) {
+            Map<Long, Integer> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(productId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalDocumentLength -= documentLengths.remove(productId);
+    }
+
+    public record SearchResult(List<Long> productIds, long totalHits) {
+    }
+}
@@ -1,17 +1,31 @@
 package com.itech.itech_backend.service;
 
+import com.itech.itech_backend.dto.CursorPageDto;
+import com.itech.itech_backend.dto.FacetedProductsDto;
+import com.itech.itech_backend.dto.ProductDetailDto;
+import com.itech.itech_backend.dto.ProductSummaryDto;
 import com.itech.itech_backend.dto.ProductDto;
 import com.itech.itech_backend.model.*;
 import com.itech.itech_backend.repository.*;
+import com.itech.itech_backend.util.CursorCodec;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,6 +35,15 @@ public class ProductService {
     private final ProductRepository productRepo;
     private final CategoryRepository categoryRepo;
     private final UserRepository userRepo;
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
+    private final ProductFacetService productFacetService;
+    private final ProductViewCounter productViewCounter;
+    private final FeaturedProductCache featuredProductCache;
+    private final ProductDetailCache productDetailCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> SORTABLE_FIELDS = Set.of("createdAt", "price", "name", "viewCount", "orderCount");
 
     public Product addProduct(ProductDto dto) {
         // Validate required fields
@@ -61,7 +84,9 @@ public class ProductService {
                 .isActive(dto.getIsActive() != null ? dto.getIsActive() : true)
                 .build();
 
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        onProductChanged(saved);
+        return saved;
     }
 
     public List<Product> getProductsByVendor(Long vendorId) {
@@ -74,104 +99,139 @@ public class ProductService {
     }
 
     // New methods to fix compilation errors
-    public Page<Product> getProducts(Pageable pageable, String category, String search, Double minPrice, Double maxPrice, String sortBy, String sortDir) {
-        // For now, return a basic implementation
-        List<Product> products = productRepo.findAll();
-        // Filter by approved and active products
-        products = products.stream()
-                .filter(product -> product.isApproved() && product.isActive())
+    public Page<ProductSummaryDto> getProducts(Pageable pageable, String category, String search, Double minPrice, Double maxPrice, String sortBy, String sortDir) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.isListed(),
+                ProductSpecifications.hasCategoryName(category),
+                ProductSpecifications.matchesText(search),
+                ProductSpecifications.priceBetween(minPrice, maxPrice),
+                ProductSpecifications.fetchAssociations());
+
+        return productRepo.findAll(spec, withSort(pageable, sortBy, sortDir)).map(ProductSummaryDto::from);
+    }
+
+    /**
+     * One page of listed products for the selected facets, plus facet counts
+     * taken from the in-memory posting lists rather than GROUP BY queries
+     * once those are ready
+     */
+    public FacetedProductsDto getFacetedProducts(Pageable pageable, String category, String brand, Boolean freeShipping,
+                                                 Integer priceBucket, String sortBy, String sortDir) {
+        Double[] priceRange = priceBucket != null ? productFacetService.priceBucketRange(priceBucket) : null;
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.isListed(),
+                ProductSpecifications.hasCategoryName(category),
+                ProductSpecifications.hasBrand(brand),
+                ProductSpecifications.offersFreeShipping(freeShipping),
+                priceRange != null ? ProductSpecifications.priceInBucket(priceRange[0], priceRange[1]) : null,
+                ProductSpecifications.fetchAssociations());
+        Page<ProductSummaryDto> products = productRepo.findAll(spec, withSort(pageable, sortBy, sortDir))
+                .map(ProductSummaryDto::from);
+
+        // The posting lists are built after startup; until then (or when disabled) count in the database
+        ProductFacetService.FacetCounts counts = productFacetService.isReady()
+                ? productFacetService.count(category, brand, freeShipping, priceBucket)
+                : productFacetService.countFromDatabase(category, brand, freeShipping, priceBucket);
+        return FacetedProductsDto.builder()
+                .products(products)
+                .categories(counts.categories())
+                .brands(counts.brands())
+                .priceBuckets(counts.priceBuckets())
+                .freeShipping(counts.freeShipping())
+                .build();
+    }
+
+    public CursorPageDto<ProductSummaryDto> getProductsByCursor(String cursor, int size) {
+        int pageSize = CursorPageDto.clampSize(size);
+        CursorCodec.Position position = CursorCodec.decode(cursor);
+        List<ProductSummaryDto> rows = productRepo.findListedBefore(position.createdAt(), position.id(), Limit.of(pageSize + 1))
+                .stream()
+                .map(ProductSummaryDto::from)
                 .collect(Collectors.toList());
-        
-        // Apply filters if provided
-        if (category != null && !category.isEmpty()) {
-            products = products.stream()
-                    .filter(product -> product.getCategory() != null && product.getCategory().getName().equalsIgnoreCase(category))
-                    .collect(Collectors.toList());
-        }
-        
-        if (search != null && !search.isEmpty()) {
-            products = products.stream()
-                    .filter(product -> product.getName().toLowerCase().contains(search.toLowerCase()) || 
-                                     (product.getDescription() != null && product.getDescription().toLowerCase().contains(search.toLowerCase())))
-                    .collect(Collectors.toList());
-        }
-        
-        if (minPrice != null) {
-            products = products.stream()
-                    .filter(product -> product.getPrice() >= minPrice)
-                    .collect(Collectors.toList());
-        }
-        
-        if (maxPrice != null) {
-            products = products.stream()
-                    .filter(product -> product.getPrice() <= maxPrice)
-                    .collect(Collectors.toList());
-        }
-        
-        // Simple pagination
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), products.size());
-        List<Product> pageContent = products.subList(start, end);
-        
-        return new PageImpl<>(pageContent, pageable, products.size());
+        return CursorPageDto.of(rows, pageSize, ProductSummaryDto::getCreatedAt, ProductSummaryDto::getId);
+    }
+
+    public List<String> suggestProducts(String prefix, int limit) {
+        return productSuggestService.suggest(prefix, limit);
     }
 
+    /**
+     * Read-only product page view, served from the product cache
+     */
+    public ProductDetailDto getProductDetail(Long productId) {
+        return productDetailCache.get(productId);
+    }
+
+    /**
+     * Loads the entity from the database, for callers that modify it
+     */
     public Product getProductById(Long productId) {
         return productRepo.findById(productId)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with ID: " + productId));
     }
 
+    /**
+     * Buffered; the stored view count catches up on the next flush
+     */
     public void incrementViewCount(Long productId) {
-        Product product = getProductById(productId);
-        product.setViewCount(product.getViewCount() + 1);
-        productRepo.save(product);
+        productViewCounter.recordView(productId);
     }
 
-    public Page<Product> searchProducts(String query, Pageable pageable) {
-        List<Product> products = productRepo.findAll();
-        products = products.stream()
-                .filter(product -> product.isApproved() && product.isActive())
-                .filter(product -> product.getName().toLowerCase().contains(query.toLowerCase()) || 
-                                 (product.getDescription() != null && product.getDescription().toLowerCase().contains(query.toLowerCase())))
+    public Page<ProductSummaryDto> searchProducts(String query, Pageable pageable) {
+        if (!productSearchService.isReady()) {
+            Specification<Product> spec = Specification.allOf(
+                    ProductSpecifications.isListed(),
+                    ProductSpecifications.matchesText(query),
+                    ProductSpecifications.fetchAssociations());
+            return productRepo.findAll(spec, withSort(pageable, null, null)).map(ProductSummaryDto::from);
+        }
+
+        ProductSearchService.SearchResult result =
+                productSearchService.search(query, (int) pageable.getOffset(), pageable.getPageSize());
+        if (result.productIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.totalHits());
+        }
+
+        // Load the page in one query, then restore the relevance order
+        Map<Long, Product> productsById = productRepo.findAll(Specification.allOf(
+                        ProductSpecifications.hasIdIn(result.productIds()),
+                        ProductSpecifications.fetchAssociations())).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductSummaryDto> pageContent = result.productIds().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .map(ProductSummaryDto::from)
                 .collect(Collectors.toList());
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), products.size());
-        List<Product> pageContent = products.subList(start, end);
-        
-        return new PageImpl<>(pageContent, pageable, products.size());
+
+        return new PageImpl<>(pageContent, pageable, result.totalHits());
     }
 
-    public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
-        List<Product> products = productRepo.findAll();
-        products = products.stream()
-                .filter(product -> product.isApproved() && product.isActive())
-                .filter(product -> product.getCategory() != null && product.getCategory().getId().equals(categoryId))
-                .collect(Collectors.toList());
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), products.size());
-        List<Product> pageContent = products.subList(start, end);
-        
-        return new PageImpl<>(pageContent, pageable, products.size());
+    public Page<ProductSummaryDto> getProductsByCategory(Long categoryId, Pageable pageable) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.isListed(),
+                ProductSpecifications.hasCategoryId(categoryId),
+                ProductSpecifications.fetchAssociations());
+
+        return productRepo.findAll(spec, withSort(pageable, null, null)).map(ProductSummaryDto::from);
     }
 
-    public Page<Product> getProductsByVendor(Long vendorId, Pageable pageable) {
-        List<Product> products = getProductsByVendor(vendorId);
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), products.size());
-        List<Product> pageContent = products.subList(start, end);
-        
-        return new PageImpl<>(pageContent, pageable, products.size());
+    public Page<ProductSummaryDto> getProductsByVendor(Long vendorId, Pageable pageable) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.hasVendorId(vendorId),
+                ProductSpecifications.fetchAssociations());
+
+        return productRepo.findAll(spec, withSort(pageable, null, null)).map(ProductSummaryDto::from);
     }
 
     public List<Product> getFeaturedProducts(int limit) {
-        List<Product> products = productRepo.findAll();
-        return products.stream()
-                .filter(product -> product.isApproved() && product.isActive() && product.isFeatured())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return productRepo.findFeatured(Limit.of(limit));
+    }
+
+    /**
+     * Featured list for the homepage as ready-to-send JSON, served from cache
+     */
+    public byte[] getFeaturedProductsJson(int limit) {
+        return featuredProductCache.getJson(limit);
     }
 
     public Product addProduct(Long vendorId, ProductDto dto) {
@@ -190,6 +250,13 @@ public class ProductService {
         return List.of();
     }
 
+    /**
+     * Images are stored outside the product row; drop cached copies of the product
+     */
+    public void productImagesChanged(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+    }
+
     public Product updateProduct(Long productId, Long vendorId, ProductDto dto) {
         Product product = getProductById(productId);
         if (!product.getVendor().getId().equals(vendorId)) {
@@ -208,7 +275,9 @@ public class ProductService {
             product.setCategory(category);
         }
         
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        onProductChanged(saved);
+        return saved;
     }
 
     public void deleteProduct(Long productId, Long vendorId) {
@@ -218,6 +287,7 @@ public class ProductService {
         }
         
         productRepo.delete(product);
+        onProductRemoved(productId);
     }
 
     public Product updateProductStatus(Long productId, Long vendorId, boolean isActive) {
@@ -227,31 +297,62 @@ public class ProductService {
         }
         
         product.setActive(isActive);
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        onProductChanged(saved);
+        return saved;
     }
 
     public Product approveProduct(Long productId) {
         Product product = getProductById(productId);
         product.setApproved(true);
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        onProductChanged(saved);
+        return saved;
     }
 
     public Product setFeaturedStatus(Long productId, boolean featured) {
         Product product = getProductById(productId);
         product.setFeatured(featured);
-        return productRepo.save(product);
+        Product saved = productRepo.save(product);
+        onProductChanged(saved);
+        return saved;
     }
 
-    public Page<Product> getPendingApprovalProducts(Pageable pageable) {
-        List<Product> products = productRepo.findAll();
-        products = products.stream()
-                .filter(product -> !product.isApproved())
-                .collect(Collectors.toList());
-        
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), products.size());
-        List<Product> pageContent = products.subList(start, end);
-        
-        return new PageImpl<>(pageContent, pageable, products.size());
+    public Page<ProductSummaryDto> getPendingApprovalProducts(Pageable pageable) {
+        Specification<Product> spec = Specification.allOf(
+                ProductSpecifications.isPendingApproval(),
+                ProductSpecifications.fetchAssociations());
+
+        return productRepo.findAll(spec, withSort(pageable, null, null)).map(ProductSummaryDto::from);
+    }
+
+    /**
+     * Keep the in-memory product indexes in step with a saved product
+     */
+    private void onProductChanged(Product product) {
+        productSearchService.index(product);
+        productSuggestService.index(product);
+        productFacetService.index(product);
+        featuredProductCache.onProductChanged(product.getId(), product.isFeatured());
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+    }
+
+    private void onProductRemoved(Long productId) {
+        productSearchService.remove(productId);
+        productSuggestService.remove(productId);
+        productFacetService.remove(productId);
+        featuredProductCache.onProductChanged(productId, false);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId));
+    }
+
+    /**
+     * Apply a whitelisted sort to the page request, newest first by default.
+     * The id tie-breaker keeps page boundaries stable when sort values repeat.
+     */
+    private Pageable withSort(Pageable pageable, String sortBy, String sortDir) {
+        String property = sortBy != null && SORTABLE_FIELDS.contains(sortBy) ? sortBy : "createdAt";
+        Sort.Direction direction = "asc".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, property).and(Sort.by(direction, "id"));
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
     }
 }
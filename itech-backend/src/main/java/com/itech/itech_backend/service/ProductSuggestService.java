@@ -0,0 +1,348 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.repository.ProductRepository;
+import com.itech.itech_backend.util.SearchTextAnalyzer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Typeahead suggestions from product names, brands, category names and tags.
+ *
+ * The prefix trie answering queries is immutable and swapped atomically, so
+ * lookups never take a lock. A product change updates it in place of a
+ * rebuild: only the phrases whose weight changed are re-inserted, copying
+ * the nodes on their paths and recomputing each copied node's best
+ * suggestions from its children. Untouched subtrees are shared with the
+ * previous version. The whole trie is only built at startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestService {
+
+    private static final int SUGGESTIONS_PER_NODE = 10;
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_WORD_STARTS = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final Comparator<Phrase> BY_WEIGHT =
+            Comparator.comparingLong(Phrase::weight).reversed().thenComparing(Phrase::key);
+
+    private final ProductRepository productRepository;
+
+    @Value("${product.suggest.enabled:true}")
+    private boolean suggestEnabled;
+
+    // productId -> phrases it contributes and the weight it contributes them with
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    // normalized phrase -> display text and summed weight across products
+    private final Map<String, Suggestion> suggestions = new HashMap<>();
+
+    // Replaced, never mutated; writers hold this service's lock
+    private volatile Node root = Node.EMPTY;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!suggestEnabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        synchronized (this) {
+            contributions.clear();
+            suggestions.clear();
+            productRepository.forEachListed(REBUILD_BATCH_SIZE, this::addContribution);
+            BuildNode builder = new BuildNode();
+            suggestions.forEach((key, suggestion) -> {
+                Phrase phrase = suggestion.toPhrase(key);
+                for (String path : paths(key)) {
+                    builder.insert(path, phrase);
+                }
+            });
+            root = builder.freeze();
+        }
+        log.info("Suggest trie built with {} phrases in {} ms", suggestions.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Suggestions for a typed prefix, most popular first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        String key = normalize(prefix);
+        Node node = root;
+        int depth = Math.min(key.length(), MAX_KEY_LENGTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        int max = Math.min(limit, SUGGESTIONS_PER_NODE);
+        List<String> result = new ArrayList<>(Math.min(max, node.top.length));
+        for (int i = 0; i < node.top.length && result.size() < max; i++) {
+            result.add(node.top[i].text());
+        }
+        return result;
+    }
+
+    public synchronized void index(Product product) {
+        if (!suggestEnabled || product.getId() == null) {
+            return;
+        }
+        Set<String> changed = new LinkedHashSet<>(removeContribution(product.getId()));
+        if (product.isApproved() && product.isActive()) {
+            changed.addAll(addContribution(product));
+        }
+        updateTrie(changed);
+    }
+
+    public synchronized void remove(Long productId) {
+        if (!suggestEnabled) {
+            return;
+        }
+        updateTrie(removeContribution(productId));
+    }
+
+    // Re-insert each changed phrase with its new weight, or take it out when it no longer has one
+    private void updateTrie(Collection<String> keys) {
+        Node updated = root;
+        for (String key : keys) {
+            Suggestion suggestion = suggestions.get(key);
+            Phrase phrase = suggestion != null ? suggestion.toPhrase(key) : null;
+            for (String path : paths(key)) {
+                updated = updated.with(path, 0, key, phrase);
+            }
+        }
+        root = updated;
+    }
+
+    private List<String> addContribution(Product product) {
+        Set<String> phrases = new LinkedHashSet<>();
+        addPhrase(phrases, product.getName());
+        addPhrase(phrases, product.getBrand());
+        if (product.getCategory() != null) {
+            addPhrase(phrases, product.getCategory().getName());
+        }
+        if (product.getTags() != null) {
+            for (String tag : product.getTags().split(",")) {
+                addPhrase(phrases, tag);
+            }
+        }
+        if (phrases.isEmpty()) {
+            return List.of();
+        }
+
+        long weight = 1L + product.getViewCount() + 5L * product.getOrderCount();
+        List<String> keys = new ArrayList<>(phrases.size());
+        for (String phrase : phrases) {
+            String key = normalize(phrase);
+            if (key.isEmpty()) {
+                continue;
+            }
+            keys.add(key);
+            suggestions.computeIfAbsent(key, k -> new Suggestion(phrase)).weight += weight;
+        }
+        contributions.put(product.getId(), new Contribution(keys, weight));
+        return keys;
+    }
+
+    private List<String> removeContribution(Long productId) {
+        Contribution contribution = contributions.remove(productId);
+        if (contribution == null) {
+            return List.of();
+        }
+        for (String key : contribution.keys()) {
+            Suggestion suggestion = suggestions.get(key);
+            if (suggestion != null) {
+                suggestion.weight -= contribution.weight();
+                if (suggestion.weight <= 0) {
+                    suggestions.remove(key);
+                }
+            }
+        }
+        return contribution.keys();
+    }
+
+    // Trie paths for a phrase: from its first few word starts, so "phone" also finds "smart phone"
+    private static List<String> paths(String key) {
+        List<String> paths = new ArrayList<>(MAX_WORD_STARTS);
+        for (int start = 0; start < key.length() && paths.size() < MAX_WORD_STARTS; start++) {
+            if (start == 0 || key.charAt(start - 1) == ' ') {
+                paths.add(key.substring(start, Math.min(key.length(), start + MAX_KEY_LENGTH)));
+            }
+        }
+        return paths;
+    }
+
+    private static void addPhrase(Set<String> phrases, String text) {
+        if (text != null && !text.isBlank()) {
+            phrases.add(text.trim());
+        }
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", SearchTextAnalyzer.tokenize(text)).toLowerCase(Locale.ROOT);
+    }
+
+    private record Contribution(List<String> keys, long weight) {
+    }
+
+    private record Phrase(String key, String text, long weight) {
+    }
+
+    private static final class Suggestion {
+        private final String text;
+        private long weight;
+
+        private Suggestion(String text) {
+            this.text = text;
+        }
+
+        Phrase toPhrase(String key) {
+            return new Phrase(key, text, weight);
+        }
+    }
+
+    /**
+     * Immutable trie node. top holds the best suggestions in the subtree, so
+     * a lookup is a walk down the prefix with no scoring at query time.
+     */
+    private static final class Node {
+
+        private static final Node EMPTY = new Node(new char[0], new Node[0], new Phrase[0]);
+
+        private final char[] keys;
+        private final Node[] children;
+        // Phrases whose path ends at this node
+        private final Phrase[] terminals;
+        private final Phrase[] top;
+
+        private Node(char[] keys, Node[] children, Phrase[] terminals) {
+            this.keys = keys;
+            this.children = children;
+            this.terminals = terminals;
+            this.top = bestOf(children, terminals);
+        }
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(keys, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        boolean isEmpty() {
+            return children.length == 0 && terminals.length == 0;
+        }
+
+        /**
+         * Copy of this subtree with the phrase for key replaced at the end of
+         * path (removed when phrase is null); nodes off the path are shared
+         */
+        Node with(String path, int depth, String key, Phrase phrase) {
+            if (depth == path.length()) {
+                List<Phrase> kept = new ArrayList<>(terminals.length + 1);
+                for (Phrase terminal : terminals) {
+                    if (!terminal.key().equals(key)) {
+                        kept.add(terminal);
+                    }
+                }
+                if (phrase != null) {
+                    kept.add(phrase);
+                }
+                return new Node(keys, children, kept.toArray(Phrase[]::new));
+            }
+            char c = path.charAt(depth);
+            int index = Arrays.binarySearch(keys, c);
+            Node updated = (index >= 0 ? children[index] : EMPTY).with(path, depth + 1, key, phrase);
+
+            if (index >= 0 && updated.isEmpty()) {
+                char[] newKeys = new char[keys.length - 1];
+                Node[] newChildren = new Node[children.length - 1];
+                System.arraycopy(keys, 0, newKeys, 0, index);
+                System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+                System.arraycopy(children, 0, newChildren, 0, index);
+                System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+                return new Node(newKeys, newChildren, terminals);
+            }
+            if (index >= 0) {
+                Node[] newChildren = children.clone();
+                newChildren[index] = updated;
+                return new Node(keys, newChildren, terminals);
+            }
+            if (updated.isEmpty()) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = updated;
+            return new Node(newKeys, newChildren, terminals);
+        }
+
+        // Best of this node's own phrases and each child's best; a phrase can reach a subtree by two paths
+        private static Phrase[] bestOf(Node[] children, Phrase[] terminals) {
+            Map<String, Phrase> candidates = new LinkedHashMap<>();
+            for (Phrase terminal : terminals) {
+                candidates.put(terminal.key(), terminal);
+            }
+            for (Node child : children) {
+                for (Phrase phrase : child.top) {
+                    candidates.putIfAbsent(phrase.key(), phrase);
+                }
+            }
+            return candidates.values().stream()
+                    .sorted(BY_WEIGHT)
+                    .limit(SUGGESTIONS_PER_NODE)
+                    .toArray(Phrase[]::new);
+        }
+    }
+
+    // Mutable trie used once for the startup build, then frozen bottom-up
+    private static final class BuildNode {
+        private final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        private final List<Phrase> terminals = new ArrayList<>(1);
+
+        void insert(String path, Phrase phrase) {
+            BuildNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), c -> new BuildNode());
+            }
+            node.terminals.add(phrase);
+        }
+
+        Node freeze() {
+            char[] keys = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, BuildNode> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(keys, frozen, terminals.toArray(Phrase[]::new));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.itech.itech_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers product page views in memory and writes them back in batches, so a
+ * product view costs a counter increment instead of a load and full-row save.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductViewCounter {
+
+    private static final String FLUSH_SQL = "UPDATE product SET view_count = view_count + ? WHERE id = ?";
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Entries are never removed, only drained: dropping one could lose an increment racing the removal
+    private final Map<Long, LongAdder> pendingViews = new ConcurrentHashMap<>();
+
+    private final AtomicLong flushedViews = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile LocalDateTime lastFlushAt;
+
+    public void recordView(Long productId) {
+        pendingViews.computeIfAbsent(productId, id -> new LongAdder()).increment();
+    }
+
+    /**
+     * Write buffered view deltas as batched relative updates
+     */
+    @Scheduled(fixedDelayString = "${product.views.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        List<Object[]> deltas = new ArrayList<>();
+        List<LongAdder> adders = new ArrayList<>();
+        pendingViews.forEach((productId, adder) -> {
+            long delta = adder.sum();
+            if (delta > 0) {
+                deltas.add(new Object[]{delta, productId});
+                adders.add(adder);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            // One transaction for all chunks: a failure part way rolls back the chunks
+            // already sent, so retrying every delta cannot count a view twice
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(FLUSH_SQL, deltas, FLUSH_BATCH_SIZE, (ps, delta) -> {
+                        ps.setLong(1, (Long) delta[0]);
+                        ps.setLong(2, (Long) delta[1]);
+                    }));
+        } catch (Exception e) {
+            // Nothing was written; keep the deltas buffered and retry on the next run
+            failedFlushes.incrementAndGet();
+            log.error("Failed to flush {} product view counts", deltas.size(), e);
+            return;
+        }
+
+        // Subtract what was written rather than resetting, so views recorded meanwhile are kept
+        long total = 0;
+        for (int i = 0; i < deltas.size(); i++) {
+            long delta = (Long) deltas.get(i)[0];
+            adders.get(i).add(-delta);
+            total += delta;
+        }
+        flushedViews.addAndGet(total);
+        lastFlushAt = LocalDateTime.now();
+        log.debug("Flushed {} views for {} products", total, deltas.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing buffered product views before shutdown");
+        flush();
+    }
+
+    public Map<String, Object> getStats() {
+        long pendingProducts = 0;
+        long pendingTotal = 0;
+        for (LongAdder adder : pendingViews.values()) {
+            long delta = adder.sum();
+            if (delta > 0) {
+                pendingProducts++;
+                pendingTotal += delta;
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingProducts", pendingProducts);
+        stats.put("pendingViews", pendingTotal);
+        stats.put("flushedViews", flushedViews.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+}
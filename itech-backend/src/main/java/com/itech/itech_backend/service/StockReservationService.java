@@ -0,0 +1,98 @@
+package com.itech.itech_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Takes stock for an order with one conditional UPDATE per product, sent as a
+ * single JDBC batch. The database checks and decrements in the same statement,
+ * so concurrent checkouts cannot oversell and never hold a read-then-write gap.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private static final String RESERVE_SQL =
+            "UPDATE product SET stock = stock - ?, order_count = order_count + ? WHERE id = ? AND stock >= ?";
+    private static final String RELEASE_SQL =
+            "UPDATE product SET stock = stock + ?, order_count = order_count - ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Decrement stock for every product in the order, or none of them.
+     * Must run inside the caller's transaction: a shortfall on any product
+     * throws and the rollback restores the rows already decremented.
+     *
+     * @param quantities productId to quantity; duplicates should already be summed
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        // Fixed id order so two orders touching the same products lock rows in the same order
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setInt(2, item.getValue());
+            ps.setLong(3, item.getKey());
+            ps.setInt(4, item.getValue());
+        })[0];
+
+        List<Long> shortProducts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == Statement.SUCCESS_NO_INFO) {
+                // Happens with rewriteBatchedStatements=true; per-row results are required here
+                throw new IllegalStateException("JDBC driver did not report stock update counts");
+            }
+            if (updated[i] == 0) {
+                shortProducts.add(items.get(i).getKey());
+            }
+        }
+        if (!shortProducts.isEmpty()) {
+            log.info("Stock reservation failed, insufficient stock for products {}", shortProducts);
+            throw new InsufficientStockException(shortProducts);
+        }
+    }
+
+    /**
+     * Put back stock taken by reserve, e.g. when an order is cancelled
+     */
+    @Transactional
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(RELEASE_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setInt(2, item.getValue());
+            ps.setLong(3, item.getKey());
+        });
+    }
+
+    public static class InsufficientStockException extends RuntimeException {
+        private final List<Long> productIds;
+
+        public InsufficientStockException(List<Long> productIds) {
+            super("Insufficient stock for products " + productIds);
+            this.productIds = List.copyOf(productIds);
+        }
+
+        public List<Long> getProductIds() {
+            return productIds;
+        }
+    }
+}
@@ -21,6 +21,7 @@ public class SubscriptionService {
 
     private final SubscriptionRepository subscriptionRepository;
     private final UserRepository userRepository;
+    private final PrincipalDirectory principalDirectory;
 
     /**
      * Get all subscription plans
@@ -35,9 +36,7 @@ public class SubscriptionService {
     @Transactional
     public void subscribeToPlan(SubscriptionDto subscriptionDto) {
         // Get current user from security context
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User vendor = userRepository.findByEmailOrPhone(userEmail, userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User vendor = currentVendor();
 
         // Cancel any existing active subscription
         subscriptionRepository.findByVendorAndStatus(vendor, Subscription.SubscriptionStatus.ACTIVE)
@@ -73,9 +72,7 @@ public class SubscriptionService {
      * Get current vendor's active subscription
      */
     public Subscription getCurrentVendorSubscription() {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User vendor = userRepository.findByEmailOrPhone(userEmail, userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User vendor = currentVendor();
 
         return subscriptionRepository.findByVendorAndStatus(vendor, Subscription.SubscriptionStatus.ACTIVE)
                 .orElseThrow(() -> new RuntimeException("No active subscription found"));
@@ -143,10 +140,14 @@ public class SubscriptionService {
      * Get vendor's subscription history
      */
     public List<Subscription> getVendorSubscriptionHistory() {
-        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
-        User vendor = userRepository.findByEmailOrPhone(userEmail, userEmail)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        User vendor = currentVendor();
 
         return subscriptionRepository.findByVendorOrderByCreatedAtDesc(vendor);
     }
+
+    // Reference to the signed-in user's row, resolved through the principal cache without loading the entity
+    private User currentVendor() {
+        String userEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.getReferenceById(principalDirectory.requireUserId(userEmail));
+    }
 }
@@ -4,16 +4,14 @@ import com.itech.itech_backend.dto.JwtResponse;
 import com.itech.itech_backend.dto.LoginRequestDto;
 import com.itech.itech_backend.dto.RegisterRequestDto;
 import com.itech.itech_backend.dto.VerifyOtpRequestDto;
-import com.itech.itech_backend.model.OtpVerification;
+import com.itech.itech_backend.enums.OtpVerifyResult;
 import com.itech.itech_backend.model.User;
-import com.itech.itech_backend.repository.OtpVerificationRepository;
 import com.itech.itech_backend.repository.UserRepository;
 import com.itech.itech_backend.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.Random;
 
@@ -22,13 +20,14 @@ import java.util.Random;
 public class UnifiedAuthService {
 
     private final UserRepository userRepository;
-    private final OtpVerificationRepository otpRepo;
+    private final OtpStore otpStore;
     private final EmailService emailService;
     private final SmsService smsService;
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     
     private static final String ADMIN_ACCESS_CODE = "ADMIN2025";
+    private static final String OTP_THROTTLED_MESSAGE = "An OTP cannot be sent right now. Please wait before requesting another.";
 
     public String register(RegisterRequestDto dto) {
         // Check if user already exists
@@ -131,22 +130,17 @@ public class UnifiedAuthService {
         
         User user = userOpt.get();
         
-        // Verify OTP
-        Optional<OtpVerification> otpOpt = otpRepo.findByEmailOrPhone(dto.getEmailOrPhone());
-        if (!otpOpt.isPresent()) {
+        // Verify OTP; an in-memory store answers without touching the database
+        if (otpStore.verify(dto.getEmailOrPhone(), dto.getOtp()) != OtpVerifyResult.VERIFIED) {
             return null;
         }
         
-        OtpVerification otp = otpOpt.get();
-        if (!otp.getOtp().equals(dto.getOtp()) || !otp.getExpiryTime().isAfter(LocalDateTime.now())) {
-            return null;
+        // Mark user as verified (first time only) and generate token
+        if (!user.isVerified()) {
+            user.setVerified(true);
+            userRepository.save(user);
         }
         
-        // Mark user as verified and generate token
-        user.setVerified(true);
-        userRepository.save(user);
-        otpRepo.delete(otp);
-        
         String token = jwtUtil.generateToken(user.getEmail(), user.getRole());
         return JwtResponse.builder()
             .token(token)
@@ -188,36 +182,17 @@ public class UnifiedAuthService {
 
     private String sendRegistrationOtp(RegisterRequestDto dto, User user) {
         String otp = generateOtp();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(5);
-        
-        // Clean up old OTPs
-        if (dto.getEmail() != null) {
-            otpRepo.deleteByEmailOrPhone(dto.getEmail());
-        }
-        if (dto.getPhone() != null) {
-            otpRepo.deleteByEmailOrPhone(dto.getPhone());
-        }
-        
-        // Store OTP
-        if (dto.getEmail() != null) {
-            otpRepo.save(OtpVerification.builder()
-                .emailOrPhone(dto.getEmail())
-                .otp(otp)
-                .expiryTime(expiry)
-                .build());
-        }
         
-        if (dto.getPhone() != null) {
-            otpRepo.save(OtpVerification.builder()
-                .emailOrPhone(dto.getPhone())
-                .otp(otp)
-                .expiryTime(expiry)
-                .build());
+        // Store OTP; a contact sent one too recently keeps its current OTP
+        boolean emailIssued = dto.getEmail() != null && otpStore.issue(dto.getEmail(), otp);
+        boolean phoneIssued = dto.getPhone() != null && otpStore.issue(dto.getPhone(), otp);
+        if (!emailIssued && !phoneIssued) {
+            return OTP_THROTTLED_MESSAGE;
         }
         
         // Send OTP
-        if (dto.getEmail() != null) emailService.sendOtp(dto.getEmail(), otp);
-        if (dto.getPhone() != null) smsService.sendOtp(dto.getPhone(), otp);
+        if (emailIssued) emailService.sendOtp(dto.getEmail(), otp);
+        if (phoneIssued) smsService.sendOtp(dto.getPhone(), otp);
         
         return "OTP sent to your email and phone";
     }
@@ -233,14 +208,10 @@ public class UnifiedAuthService {
 
     private String generateAndSendOtp(String contact, String role) {
         String otp = generateOtp();
-        LocalDateTime expiry = LocalDateTime.now().plusMinutes(5);
         
-        otpRepo.deleteByEmailOrPhone(contact);
-        otpRepo.save(OtpVerification.builder()
-            .emailOrPhone(contact)
-            .otp(otp)
-            .expiryTime(expiry)
-            .build());
+        if (!otpStore.issue(contact, otp)) {
+            return OTP_THROTTLED_MESSAGE;
+        }
         
         if (contact.contains("@")) {
             emailService.sendOtp(contact, otp);
@@ -0,0 +1,134 @@
+package com.itech.itech_backend.util;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * Small in-process cache with a size bound (least recently used entries go
+ * first) and a time-to-live per entry. Keeps hit, miss and eviction counts.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public BoundedCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Cached value, or null if absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+                hits.incrementAndGet();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    /**
+     * Read-modify-write of one entry under the cache lock, so concurrent
+     * updates of a key do not lose each other's changes. remapping gets the
+     * current value (null if absent or expired) and returns the new one, or
+     * null to remove the entry; it runs under the lock, so keep it short.
+     */
+    public V compute(K key, UnaryOperator<V> remapping) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            V updated = remapping.apply(entry != null ? entry.value : null);
+            if (updated == null) {
+                entries.remove(key);
+            } else {
+                entries.put(key, new Entry<>(updated, System.nanoTime() + ttlNanos));
+            }
+            return updated;
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Drop every entry whose value matches, e.g. all keys that resolve to one record
+     */
+    public void invalidateIf(Predicate<V> matches) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> matches.test(entry.value));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
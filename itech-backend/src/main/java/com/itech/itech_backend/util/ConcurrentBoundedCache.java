@@ -0,0 +1,117 @@
+package com.itech.itech_backend.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free counterpart of {@link BoundedCache} for caches read on every
+ * request. Reads and writes go straight to a ConcurrentHashMap; the size bound
+ * is approximate: once a put takes the map over maxSize, one thread sweeps
+ * expired entries and then drops arbitrary ones down to 90% of maxSize while
+ * other threads carry on. Keeps the same hit, miss and eviction counts.
+ */
+public class ConcurrentBoundedCache<K, V> {
+
+    private final int maxSize;
+    private final int sweepTarget;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+
+    public ConcurrentBoundedCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.sweepTarget = Math.max(1, maxSize - maxSize / 10);
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Cached value, or null if absent or expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            hits.incrementAndGet();
+            return entry.value;
+        }
+        // Only remove the expired entry we saw, not one another thread has just put
+        if (entry != null && entries.remove(key, entry)) {
+            expirations.incrementAndGet();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > maxSize) {
+            sweep();
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("expirations", expirations.get());
+        return stats;
+    }
+
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            Iterator<Entry<V>> values = entries.values().iterator();
+            while (values.hasNext()) {
+                if (values.next().expiresAt - now <= 0) {
+                    values.remove();
+                    expirations.incrementAndGet();
+                }
+            }
+            // Arbitrary (hash) order rather than LRU; a dropped entry only costs one more verification
+            values = entries.values().iterator();
+            while (entries.size() > sweepTarget && values.hasNext()) {
+                values.next();
+                values.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.itech.itech_backend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Encodes the (createdAt, id) position of the last row on a page into an
+ * opaque cursor string, and decodes it back for the next keyset query.
+ */
+public final class CursorCodec {
+
+    /**
+     * Position before the newest possible row, used when no cursor is given
+     */
+    public static final Position FIRST_PAGE = new Position(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private CursorCodec() {
+    }
+
+    public static String encode(LocalDateTime createdAt, Long id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor, or return FIRST_PAGE when the cursor is empty
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST_PAGE;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new Position(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public record Position(LocalDateTime createdAt, Long id) {
+    }
+}
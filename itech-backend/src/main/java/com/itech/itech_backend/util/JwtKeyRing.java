@@ -0,0 +1,349 @@
+package com.itech.itech_backend.util;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keys for the asymmetric JWT mode (jwt.signing.algorithm=RS256 or ES256).
+ *
+ * Key pairs are PEM files in jwt.keys.directory, one per key id, so they
+ * survive restarts and every node sharing the directory signs and verifies
+ * with the same set. The newest key signs; the public halves of the newest
+ * and recently retired keys verify, and are published as a JWKS for other
+ * services. Tokens carry the signing key's id in the kid header.
+ *
+ * Each node re-reads the directory on a schedule and writes a new key once
+ * the newest is older than the rotation interval; the first node to do so
+ * rotates them all. A kid this node has not loaded yet, e.g. just written by
+ * another node, triggers one rate-limited re-read of the directory. That is
+ * a local file read, never a network call.
+ */
+@Component
+@Slf4j
+public class JwtKeyRing {
+
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+    // <creation millis>-<random>.pem; the creation time orders keys and dates their retirement
+    private static final Pattern KEY_FILE = Pattern.compile("(\\d+)-[0-9a-f]{8}\\.pem");
+    private static final Pattern PEM_BLOCK =
+            Pattern.compile("-----BEGIN ([A-Z ]+)-----\\s*([A-Za-z0-9+/=\\s]+?)-----END \\1-----");
+
+    @Value("${jwt.signing.algorithm:HS512}")
+    private SignatureAlgorithm algorithm;
+
+    @Value("${jwt.expiration-in-ms}")
+    private long tokenLifetimeMs;
+
+    @Value("${jwt.keys.directory:}")
+    private String keysDirectory;
+
+    @Value("${jwt.keys.rotation-interval-ms:86400000}")
+    private long rotationIntervalMs;
+
+    @Value("${jwt.keys.reload-interval-ms:60000}")
+    private long reloadIntervalMs;
+
+    // Minimum gap between re-reads triggered by unknown kids
+    @Value("${jwt.keys.min-reload-interval-ms:5000}")
+    private long minReloadIntervalMs;
+
+    private Path directory;
+    private volatile SigningKey current;
+    private volatile Map<String, VerificationKey> verificationKeys = Map.of();
+    private volatile long lastReload;
+
+    @PostConstruct
+    void init() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        if (!algorithm.isRsa() && !algorithm.isEllipticCurve()) {
+            throw new IllegalStateException("jwt.signing.algorithm must be HS512, an RS* or PS* algorithm, or ES*; got " + algorithm);
+        }
+        if (keysDirectory.isBlank()) {
+            throw new IllegalStateException("jwt.keys.directory must be set for " + algorithm.getValue()
+                    + " signing; point every node at the same directory");
+        }
+        directory = Path.of(keysDirectory);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create JWT key directory " + directory, e);
+        }
+        refresh();
+        if (current == null) {
+            throw new IllegalStateException("No usable " + algorithm.getValue() + " signing key in " + directory);
+        }
+    }
+
+    /**
+     * True when tokens are signed with a private key from this ring rather than the shared HMAC secret
+     */
+    public boolean isAsymmetric() {
+        return !algorithm.isHmac();
+    }
+
+    public SignatureAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public SigningKey currentSigningKey() {
+        SigningKey signingKey = current;
+        if (signingKey == null) {
+            throw new IllegalStateException("No JWT signing key loaded");
+        }
+        return signingKey;
+    }
+
+    /**
+     * Public key for the kid, or null if unknown. An unknown kid re-reads the
+     * key directory once (rate limited) before giving up on it.
+     */
+    public PublicKey publicKey(String kid) {
+        if (kid == null) {
+            return null;
+        }
+        VerificationKey key = verificationKeys.get(kid);
+        if (key == null && System.currentTimeMillis() - lastReload > minReloadIntervalMs) {
+            reload();
+            key = verificationKeys.get(kid);
+        }
+        return key != null ? key.publicKey() : null;
+    }
+
+    /**
+     * Pick up keys written by other nodes, and rotate once the newest key is
+     * older than the rotation interval
+     */
+    @Scheduled(initialDelayString = "${jwt.keys.reload-interval-ms:60000}",
+            fixedDelayString = "${jwt.keys.reload-interval-ms:60000}")
+    public synchronized void refresh() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        reload();
+        SigningKey signingKey = current;
+        if (signingKey == null || System.currentTimeMillis() - signingKey.createdAt() >= rotationIntervalMs) {
+            rotate();
+        }
+    }
+
+    /**
+     * Write a new key to the directory and start signing with it. Older
+     * public keys keep verifying until every token they signed has expired.
+     */
+    public synchronized void rotate() {
+        if (!isAsymmetric()) {
+            return;
+        }
+        KeyPair keyPair = Keys.keyPairFor(algorithm);
+        SigningKey previous = current;
+        // Creation times order the keys, so two keys must never share one
+        long now = Math.max(System.currentTimeMillis(), previous != null ? previous.createdAt() + 1 : 0);
+        String kid = now + "-" + UUID.randomUUID().toString().substring(0, 8);
+        try {
+            writeKey(kid, keyPair);
+        } catch (IOException e) {
+            // Keep signing with the current key; the next refresh tries again
+            log.error("Failed to write new JWT signing key to {}", directory, e);
+            return;
+        }
+        reload();
+        log.info("JWT signing key rotated to {} ({}), {} keys published", current.kid(), algorithm, verificationKeys.size());
+    }
+
+    private synchronized void reload() {
+        lastReload = System.currentTimeMillis();
+        TreeMap<Long, Map.Entry<String, KeyPair>> byCreation = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.pem")) {
+            for (Path file : files) {
+                Matcher name = KEY_FILE.matcher(file.getFileName().toString());
+                if (!name.matches()) {
+                    continue;
+                }
+                String kid = file.getFileName().toString().replace(".pem", "");
+                try {
+                    byCreation.put(Long.parseLong(name.group(1)), Map.entry(kid, readKey(file)));
+                } catch (Exception e) {
+                    // e.g. a key of another algorithm left from before a switch
+                    log.warn("Skipping unreadable JWT key file {}", file, e);
+                }
+            }
+        } catch (IOException e) {
+            // Keep signing and verifying with the keys already loaded
+            log.error("Failed to read JWT key directory {}", directory, e);
+            return;
+        }
+        if (byCreation.isEmpty()) {
+            return;
+        }
+
+        // A key retires one token lifetime after the next one took over, plus a reload for every node to switch
+        long now = System.currentTimeMillis();
+        Map<String, VerificationKey> loaded = new ConcurrentHashMap<>();
+        Long newerCreatedAt = null;
+        for (Map.Entry<Long, Map.Entry<String, KeyPair>> entry : byCreation.descendingMap().entrySet()) {
+            String kid = entry.getValue().getKey();
+            long retireAt = newerCreatedAt == null ? Long.MAX_VALUE : newerCreatedAt + reloadIntervalMs + tokenLifetimeMs;
+            if (retireAt < now) {
+                deleteKey(kid);
+            } else {
+                loaded.put(kid, new VerificationKey(entry.getValue().getValue().getPublic(), retireAt));
+            }
+            newerCreatedAt = entry.getKey();
+        }
+        Map.Entry<Long, Map.Entry<String, KeyPair>> newest = byCreation.lastEntry();
+        verificationKeys = loaded;
+        current = new SigningKey(newest.getValue().getKey(), newest.getValue().getValue(), newest.getKey());
+    }
+
+    private void writeKey(String kid, KeyPair keyPair) throws IOException {
+        String pem = pem("PRIVATE KEY", keyPair.getPrivate().getEncoded())
+                + pem("PUBLIC KEY", keyPair.getPublic().getEncoded());
+        Path temp = Files.createTempFile(directory, kid, ".tmp");
+        try {
+            if (Files.getFileStore(temp).supportsFileAttributeView("posix")) {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            }
+            Files.writeString(temp, pem, StandardCharsets.US_ASCII);
+            // Other nodes must never read a half-written key
+            try {
+                Files.move(temp, directory.resolve(kid + ".pem"), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, directory.resolve(kid + ".pem"));
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private KeyPair readKey(Path file) throws Exception {
+        Map<String, byte[]> blocks = new LinkedHashMap<>();
+        Matcher block = PEM_BLOCK.matcher(Files.readString(file, StandardCharsets.US_ASCII));
+        while (block.find()) {
+            blocks.put(block.group(1), Base64.getMimeDecoder().decode(block.group(2)));
+        }
+        if (!blocks.containsKey("PRIVATE KEY") || !blocks.containsKey("PUBLIC KEY")) {
+            throw new IllegalArgumentException("Expected a PRIVATE KEY and a PUBLIC KEY block");
+        }
+        KeyFactory keyFactory = KeyFactory.getInstance(algorithm.isRsa() ? "RSA" : "EC");
+        return new KeyPair(
+                keyFactory.generatePublic(new X509EncodedKeySpec(blocks.get("PUBLIC KEY"))),
+                keyFactory.generatePrivate(new PKCS8EncodedKeySpec(blocks.get("PRIVATE KEY"))));
+    }
+
+    private void deleteKey(String kid) {
+        try {
+            // Another node may have deleted it first
+            if (Files.deleteIfExists(directory.resolve(kid + ".pem"))) {
+                log.info("Deleted retired JWT key {}", kid);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete retired JWT key {}", kid, e);
+        }
+    }
+
+    private static String pem(String type, byte[] der) {
+        String base64 = Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der);
+        return "-----BEGIN " + type + "-----\n" + base64 + "\n-----END " + type + "-----\n";
+    }
+
+    /**
+     * Public keys in JWK Set form, for /.well-known/jwks.json
+     */
+    public Map<String, Object> jwks() {
+        List<Map<String, Object>> keys = new ArrayList<>();
+        verificationKeys.forEach((kid, key) -> keys.add(toJwk(kid, key.publicKey())));
+        return Map.of("keys", keys);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("algorithm", algorithm.getValue());
+        stats.put("keysDirectory", directory != null ? directory.toString() : null);
+        stats.put("currentKid", current != null ? current.kid() : null);
+        stats.put("verificationKeys", verificationKeys.size());
+        return stats;
+    }
+
+    private Map<String, Object> toJwk(String kid, PublicKey publicKey) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", kid);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        if (publicKey instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", BASE64_URL.encodeToString(unsigned(rsa.getModulus(), 0)));
+            jwk.put("e", BASE64_URL.encodeToString(unsigned(rsa.getPublicExponent(), 0)));
+        } else if (publicKey instanceof ECPublicKey ec) {
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", curveName(size));
+            jwk.put("x", BASE64_URL.encodeToString(unsigned(ec.getW().getAffineX(), size)));
+            jwk.put("y", BASE64_URL.encodeToString(unsigned(ec.getW().getAffineY(), size)));
+        }
+        return jwk;
+    }
+
+    private static String curveName(int size) {
+        return switch (size) {
+            case 32 -> "P-256";
+            case 48 -> "P-384";
+            case 66 -> "P-521";
+            default -> throw new IllegalArgumentException("Unsupported EC key size " + size);
+        };
+    }
+
+    // Big-endian magnitude without the sign byte, left-padded to length when given
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length >= length) {
+            return bytes;
+        }
+        byte[] padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        return padded;
+    }
+
+    public record SigningKey(String kid, KeyPair keyPair, long createdAt) {
+    }
+
+    private record VerificationKey(PublicKey publicKey, long retireAt) {
+    }
+}
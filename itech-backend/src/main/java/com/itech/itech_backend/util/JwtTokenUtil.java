@@ -1,5 +1,6 @@
 package com.itech.itech_backend.util;
 
+import io.jsonwebtoken.JwtException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -15,33 +16,46 @@ public class JwtTokenUtil {
      * Extract user ID from JWT token in the Authorization header
      */
     public Long extractUserIdFromRequest(HttpServletRequest request) {
-        String token = extractTokenFromRequest(request);
-        if (token != null && jwtUtil.validateToken(token)) {
-            return jwtUtil.extractUserId(token);
-        }
-        return null;
+        VerifiedJwt jwt = verifiedJwt(request);
+        return jwt != null ? jwt.userId() : null;
     }
 
     /**
      * Extract username from JWT token in the Authorization header
      */
     public String extractUsernameFromRequest(HttpServletRequest request) {
-        String token = extractTokenFromRequest(request);
-        if (token != null && jwtUtil.validateToken(token)) {
-            return jwtUtil.extractUsername(token);
-        }
-        return null;
+        VerifiedJwt jwt = verifiedJwt(request);
+        return jwt != null ? jwt.subject() : null;
     }
 
     /**
      * Extract role from JWT token in the Authorization header
      */
     public String extractRoleFromRequest(HttpServletRequest request) {
+        VerifiedJwt jwt = verifiedJwt(request);
+        return jwt != null ? jwt.role() : null;
+    }
+
+    /**
+     * Claims verified by JwtFilter for this request. Falls back to verifying
+     * the header here (and remembering the result) when the filter did not run.
+     */
+    public VerifiedJwt verifiedJwt(HttpServletRequest request) {
+        Object verified = request.getAttribute(VerifiedJwt.REQUEST_ATTRIBUTE);
+        if (verified instanceof VerifiedJwt jwt) {
+            return jwt;
+        }
         String token = extractTokenFromRequest(request);
-        if (token != null && jwtUtil.validateToken(token)) {
-            return jwtUtil.extractRole(token);
+        if (token == null) {
+            return null;
+        }
+        try {
+            VerifiedJwt jwt = jwtUtil.verify(token);
+            request.setAttribute(VerifiedJwt.REQUEST_ATTRIBUTE, jwt);
+            return jwt;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
         }
-        return null;
     }
 
     /**
@@ -59,8 +73,12 @@ public class JwtTokenUtil {
      * Validate if user ID from token matches the requested user ID
      */
     public boolean validateUserAccess(HttpServletRequest request, Long requestedUserId) {
-        Long tokenUserId = extractUserIdFromRequest(request);
-        String role = extractRoleFromRequest(request);
+        VerifiedJwt jwt = verifiedJwt(request);
+        if (jwt == null) {
+            return false;
+        }
+        Long tokenUserId = jwt.userId();
+        String role = jwt.role();
         
         // Admin can access any user's data
         if ("ADMIN".equals(role)) {
@@ -2,35 +2,88 @@ package com.itech.itech_backend.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    private final JwtKeyRing keyRing;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration-in-ms}")
     private long jwtExpirationInMs;
 
-    private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${jwt.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${jwt.cache.max-size:100000}")
+    private int cacheMaxSize;
+
+    // Upper bound on how long an entry lives; entries also end at the token's exp
+    @Value("${jwt.cache.max-ttl-seconds:3600}")
+    private long cacheMaxTtlSeconds;
+
+    // Built once; both are immutable and thread-safe
+    private SecretKey secretKey;
+    private JwtParser parser;
+
+    // Verified claims keyed by token hash, so repeat requests skip the HMAC check and parsing.
+    // Read by every authenticated request, so it must not serialize them on one lock.
+    private ConcurrentBoundedCache<String, VerifiedJwt> verifiedTokens;
+    // Revoked token hash -> the token's exp in epoch millis. Never bounded by size: dropping an entry
+    // early would make a revoked token valid again. Entries go once the token has expired anyway.
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        secretKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    @Override
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveVerificationKey(header);
+                    }
+                })
+                .build();
+        verifiedTokens = new ConcurrentBoundedCache<>(cacheMaxSize, Duration.ofSeconds(cacheMaxTtlSeconds));
     }
 
     // ✅ Generate Token with Role and User ID
     public String generateToken(String emailOrPhone, String role, Long userId) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(emailOrPhone)
                 .claim("role", role)
                 .claim("userId", userId)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMs))
-                .signWith(getSecretKey(), SignatureAlgorithm.HS512)
-                .compact();
+                .setExpiration(new Date(System.currentTimeMillis() + jwtExpirationInMs));
+        if (keyRing.isAsymmetric()) {
+            JwtKeyRing.SigningKey signingKey = keyRing.currentSigningKey();
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                    .signWith(signingKey.keyPair().getPrivate(), keyRing.getAlgorithm());
+        } else {
+            builder.signWith(secretKey, SignatureAlgorithm.HS512);
+        }
+        return builder.compact();
     }
 
     // ✅ Generate Token with Role (backward compatibility)
@@ -39,47 +92,135 @@ public class JwtUtil {
     }
 
 
+    /**
+     * Check the signature and expiry once and return the claims the app uses
+     *
+     * @throws JwtException if the token is invalid or expired
+     */
+    public VerifiedJwt verify(String token) {
+        String key = tokenHash(token);
+        if (revokedTokens.containsKey(key)) {
+            throw new JwtException("Token has been revoked");
+        }
+        if (!cacheEnabled) {
+            return parseVerified(token);
+        }
+        VerifiedJwt cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() == null || cached.expiresAt().after(new Date())) {
+                return cached;
+            }
+            verifiedTokens.invalidate(key);
+        }
+        VerifiedJwt verified = parseVerified(token);
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Reject the token from now on, e.g. at logout, and drop its cached claims
+     */
+    public void revoke(String token) {
+        VerifiedJwt verified;
+        try {
+            verified = parseVerified(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            // Invalid or already expired: it cannot be used, so there is nothing to remember
+            return;
+        }
+        String key = tokenHash(token);
+        long expiresAt = verified.expiresAt() != null
+                ? verified.expiresAt().getTime()
+                : System.currentTimeMillis() + jwtExpirationInMs;
+        revokedTokens.put(key, expiresAt);
+        verifiedTokens.invalidate(key);
+    }
+
+    /**
+     * Forget revocations of tokens that have expired, since verification rejects those on its own
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocations.purge-interval-ms:60000}")
+    public void purgeExpiredRevocations() {
+        long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(verifiedTokens.getStats());
+        stats.put("enabled", cacheEnabled);
+        stats.put("revokedTokens", revokedTokens.size());
+        return stats;
+    }
+
+    private VerifiedJwt parseVerified(String token) {
+        Claims claims = parseClaims(token);
+        Object userId = claims.get("userId");
+        return new VerifiedJwt(
+                claims.getSubject(),
+                claims.get("role", String.class),
+                userId != null ? Long.parseLong(userId.toString()) : null,
+                claims.getIssuedAt(),
+                claims.getExpiration());
+    }
+
     // ✅ Extract Email/Phone from Token
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).subject();
     }
 
     // ✅ Extract Role from Token
     public String extractRole(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .get("role", String.class);
+        return verify(token).role();
     }
 
     // ✅ Extract User ID from Token
     public Long extractUserId(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSecretKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        Object userId = claims.get("userId");
-        return userId != null ? Long.parseLong(userId.toString()) : null;
+        return verify(token).userId();
     }
 
     // ✅ Validate Token
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSecretKey())
-                    .build()
-                    .parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
+
+    private Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * HS512 tokens verify with the shared secret, asymmetric ones with the
+     * public key named by their kid. Tokens in the other mode are refused, so
+     * switching modes logs everyone out once.
+     */
+    private Key resolveVerificationKey(JwsHeader<?> header) {
+        SignatureAlgorithm tokenAlgorithm = SignatureAlgorithm.forName(header.getAlgorithm());
+        if (!keyRing.isAsymmetric()) {
+            if (!tokenAlgorithm.isHmac()) {
+                throw new UnsupportedJwtException("Expected an HMAC-signed token");
+            }
+            return secretKey;
+        }
+        if (tokenAlgorithm != keyRing.getAlgorithm()) {
+            throw new UnsupportedJwtException("Expected a " + keyRing.getAlgorithm().getValue() + " token");
+        }
+        PublicKey publicKey = keyRing.publicKey(header.getKeyId());
+        if (publicKey == null) {
+            throw new UnsupportedJwtException("Unknown signing key " + header.getKeyId());
+        }
+        return publicKey;
+    }
+
+    private static String tokenHash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package com.itech.itech_backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Tokenizer and light English stemmer shared by the product search indexes.
+ * Indexing and querying must go through the same analyzer so terms line up.
+ */
+public final class SearchTextAnalyzer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "is",
+            "it", "of", "on", "or", "the", "to", "with");
+
+    private SearchTextAnalyzer() {
+    }
+
+    /**
+     * Split text into lowercase alphanumeric tokens, dropping stop words
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = lower.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tokenize and stem, the form stored in the inverted index
+     */
+    public static List<String> analyze(String text) {
+        List<String> tokens = tokenize(text);
+        tokens.replaceAll(SearchTextAnalyzer::stem);
+        return tokens;
+    }
+
+    /**
+     * Step 1 of the Porter stemmer: strip plurals, -ed, -ing and a final -y
+     * so that "chairs", "chair" and "chairing" share one index term. Unlike
+     * plain suffix chopping it only strips when a vowel is left in the stem,
+     * so "string", "speed" and "italy" keep distinct terms.
+     */
+    public static String stem(String token) {
+        if (token.length() < MIN_STEM_LENGTH || !isAsciiWord(token)) {
+            return token;
+        }
+        String word = token;
+
+        // Step 1a: plurals
+        if (word.endsWith("sses")) {
+            word = word.substring(0, word.length() - 2);
+        } else if (word.endsWith("ies")) {
+            word = word.substring(0, word.length() - 2);
+        } else if (word.endsWith("s") && !word.endsWith("ss")) {
+            word = word.substring(0, word.length() - 1);
+        }
+
+        // Step 1b: -eed, -ed, -ing
+        if (word.endsWith("eed")) {
+            if (measure(word, word.length() - 3) > 0) {
+                word = word.substring(0, word.length() - 1);
+            }
+        } else {
+            int suffix = word.endsWith("ed") ? 2 : word.endsWith("ing") ? 3 : 0;
+            if (suffix > 0 && hasVowel(word, word.length() - suffix)) {
+                word = word.substring(0, word.length() - suffix);
+                if (word.endsWith("at") || word.endsWith("bl") || word.endsWith("iz")) {
+                    word = word + "e";
+                } else if (endsWithDoubleConsonant(word)
+                        && !word.endsWith("l") && !word.endsWith("s") && !word.endsWith("z")) {
+                    word = word.substring(0, word.length() - 1);
+                } else if (measure(word, word.length()) == 1 && endsCvc(word)) {
+                    word = word + "e";
+                }
+            }
+        }
+
+        // Step 1c: y to i after a vowel-bearing stem, so "pony" and "ponies" agree
+        if (word.endsWith("y") && hasVowel(word, word.length() - 1)) {
+            word = word.substring(0, word.length() - 1) + "i";
+        }
+        return word;
+    }
+
+    private static boolean isAsciiWord(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Porter's consonant test: y is a consonant at the start or after a vowel
+    private static boolean isConsonant(String word, int i) {
+        char c = word.charAt(i);
+        if (c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u') {
+            return false;
+        }
+        return c != 'y' || i == 0 || !isConsonant(word, i - 1);
+    }
+
+    private static boolean hasVowel(String word, int end) {
+        for (int i = 0; i < end; i++) {
+            if (!isConsonant(word, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Number of vowel-consonant sequences in word[0, end), Porter's m
+    private static int measure(String word, int end) {
+        int m = 0;
+        boolean previousVowel = false;
+        for (int i = 0; i < end; i++) {
+            boolean vowel = !isConsonant(word, i);
+            if (previousVowel && !vowel) {
+                m++;
+            }
+            previousVowel = vowel;
+        }
+        return m;
+    }
+
+    private static boolean endsWithDoubleConsonant(String word) {
+        int n = word.length();
+        return n >= 2 && word.charAt(n - 1) == word.charAt(n - 2) && isConsonant(word, n - 1);
+    }
+
+    // consonant-vowel-consonant ending, last consonant not w, x or y (e.g. "hop")
+    private static boolean endsCvc(String word) {
+        int n = word.length();
+        if (n < 3 || !isConsonant(word, n - 1) || isConsonant(word, n - 2) || !isConsonant(word, n - 3)) {
+            return false;
+        }
+        char last = word.charAt(n - 1);
+        return last != 'w' && last != 'x' && last != 'y';
+    }
+}
@@ -0,0 +1,13 @@
+package com.itech.itech_backend.util;
+
+import java.util.Date;
+
+/**
+ * Claims of a bearer token whose signature and expiry have been checked.
+ * JwtFilter verifies the token once per request and stores this under
+ * {@link #REQUEST_ATTRIBUTE} for controllers and JwtTokenUtil to read.
+ */
+public record VerifiedJwt(String subject, String role, Long userId, Date issuedAt, Date expiresAt) {
+
+    public static final String REQUEST_ATTRIBUTE = VerifiedJwt.class.getName();
+}
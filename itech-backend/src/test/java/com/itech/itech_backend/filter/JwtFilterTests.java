@@ -0,0 +1,202 @@
+package com.itech.itech_backend.filter;
+
+import com.itech.itech_backend.util.JwtKeyRing;
+import com.itech.itech_backend.util.JwtTokenUtil;
+import com.itech.itech_backend.util.JwtUtil;
+import com.itech.itech_backend.util.VerifiedJwt;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Plain unit tests on JwtFilter and the verified-token cache. The tagged
+ * benchmark times the per-request token work: the old path, which rebuilt the
+ * key and parser and verified the token four times, against one verification
+ * in JwtFilter whose claims JwtTokenUtil reads back from the request, with and
+ * without the cache. Plain timing loop; JMH is not on the build.
+ */
+class JwtFilterTests {
+
+	private static final String SECRET = "a1b2c3d4e5f6g7h8i9j0k1l2m3n4o5p6q7r8s9t0u1v2w3x4y5z6a7b8c9d0e1f2";
+	private static final int WARMUP = 5_000;
+	private static final int ITERATIONS = 20_000;
+
+	private JwtUtil jwtUtil;
+	private JwtFilter jwtFilter;
+	private JwtTokenUtil jwtTokenUtil;
+	private String token;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		useJwtUtil(newJwtUtil(true));
+	}
+
+	private JwtUtil newJwtUtil(boolean cacheEnabled) throws Exception {
+		JwtKeyRing keyRing = new JwtKeyRing();
+		ReflectionTestUtils.setField(keyRing, "algorithm", SignatureAlgorithm.HS512);
+		JwtUtil util = new JwtUtil(keyRing);
+		ReflectionTestUtils.setField(util, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(util, "jwtExpirationInMs", 3_600_000L);
+		ReflectionTestUtils.setField(util, "cacheEnabled", cacheEnabled);
+		ReflectionTestUtils.setField(util, "cacheMaxSize", 1_000);
+		ReflectionTestUtils.setField(util, "cacheMaxTtlSeconds", 3_600L);
+		Method init = JwtUtil.class.getDeclaredMethod("init");
+		init.setAccessible(true);
+		init.invoke(util);
+		return util;
+	}
+
+	private void useJwtUtil(JwtUtil util) {
+		jwtUtil = util;
+		jwtFilter = new JwtFilter(jwtUtil, null);
+		jwtTokenUtil = new JwtTokenUtil();
+		ReflectionTestUtils.setField(jwtTokenUtil, "jwtUtil", jwtUtil);
+		token = jwtUtil.generateToken("buyer@example.com", "USER", 42L);
+	}
+
+	@AfterEach
+	void clearContext() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void filterVerifiesOnceAndExposesClaims() throws Exception {
+		MockHttpServletRequest request = authenticatedRequest();
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+		VerifiedJwt jwt = (VerifiedJwt) request.getAttribute(VerifiedJwt.REQUEST_ATTRIBUTE);
+		assertNotNull(jwt);
+		assertEquals("buyer@example.com", jwt.subject());
+		assertEquals(42L, jwtTokenUtil.extractUserIdFromRequest(request));
+		assertEquals("USER", jwtTokenUtil.extractRoleFromRequest(request));
+		assertEquals("buyer@example.com", SecurityContextHolder.getContext().getAuthentication().getName());
+	}
+
+	@Test
+	void repeatTokenIsServedFromCache() {
+		jwtUtil.verify(token);
+		jwtUtil.verify(token);
+		jwtUtil.verify(token);
+
+		assertEquals(2L, jwtUtil.getCacheStats().get("hits"));
+		assertEquals(1L, jwtUtil.getCacheStats().get("misses"));
+	}
+
+	@Test
+	void revokedTokenIsRejected() throws Exception {
+		jwtUtil.verify(token);
+		jwtUtil.revoke(token);
+
+		assertThrows(JwtException.class, () -> jwtUtil.verify(token));
+		MockHttpServletRequest request = authenticatedRequest();
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertNull(request.getAttribute(VerifiedJwt.REQUEST_ATTRIBUTE));
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	void requestWithoutTokenStaysAnonymous() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+		assertNull(request.getAttribute(VerifiedJwt.REQUEST_ATTRIBUTE));
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+		assertNull(jwtTokenUtil.extractUserIdFromRequest(request));
+	}
+
+	@Test
+	void uncachedModeVerifiesEveryTime() throws Exception {
+		useJwtUtil(newJwtUtil(false));
+		MockHttpServletRequest request = authenticatedRequest();
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		jwtUtil.verify(token);
+
+		assertEquals(42L, jwtTokenUtil.extractUserIdFromRequest(request));
+		assertEquals(0L, jwtUtil.getCacheStats().get("hits"));
+	}
+
+	// Prints timings rather than asserting; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void filterChainBeforeAndAfter() throws Exception {
+		for (int i = 0; i < WARMUP; i++) {
+			previousRequestPath();
+			currentRequestPath();
+		}
+		long before = time(this::previousRequestPath);
+		long cached = time(this::currentRequestPath);
+
+		useJwtUtil(newJwtUtil(false));
+		for (int i = 0; i < WARMUP; i++) {
+			currentRequestPath();
+		}
+		long uncached = time(this::currentRequestPath);
+
+		System.out.printf("JWT work per request: before %.1f us, single verification %.1f us, cached %.1f us (%d iterations)%n",
+				before / 1000.0 / ITERATIONS, uncached / 1000.0 / ITERATIONS, cached / 1000.0 / ITERATIONS, ITERATIONS);
+	}
+
+	/**
+	 * What a request used to cost: extractUsername, validateToken and
+	 * extractRole in the filter, then extractUserIdFromRequest in the
+	 * controller, each building a key and parser and verifying the signature
+	 */
+	private Long previousRequestPath() {
+		parseWithFreshParser(token).getSubject();
+		parseWithFreshParser(token);
+		parseWithFreshParser(token).get("role", String.class);
+		Object userId = parseWithFreshParser(token).get("userId");
+		return Long.parseLong(userId.toString());
+	}
+
+	private Long currentRequestPath() throws Exception {
+		MockHttpServletRequest request = authenticatedRequest();
+		jwtFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		SecurityContextHolder.clearContext();
+		return jwtTokenUtil.extractUserIdFromRequest(request);
+	}
+
+	private Claims parseWithFreshParser(String jwt) {
+		return Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+				.build()
+				.parseClaimsJws(jwt)
+				.getBody();
+	}
+
+	private MockHttpServletRequest authenticatedRequest() {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+		request.addHeader("Authorization", "Bearer " + token);
+		return request;
+	}
+
+	private long time(ThrowingCall call) throws Exception {
+		long startedAt = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			assertEquals(42L, call.run());
+		}
+		return System.nanoTime() - startedAt;
+	}
+
+	private interface ThrowingCall {
+		Long run() throws Exception;
+	}
+}
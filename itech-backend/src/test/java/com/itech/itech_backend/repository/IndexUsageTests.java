@@ -0,0 +1,144 @@
+package com.itech.itech_backend.repository;
+
+import com.itech.itech_backend.model.User;
+import com.itech.itech_backend.support.StatementCapture;
+import com.itech.itech_backend.support.StatementCapture.CapturedStatement;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the hot repository queries, captures the SQL and bind values Hibernate
+ * actually sends, and checks that MySQL's EXPLAIN picks (the key column, not
+ * just possible_keys) the composite index declared for each of them. Plans
+ * depend on table statistics, so on a near-empty table the index only has to
+ * be a candidate.
+ */
+@SpringBootTest
+@Import(StatementCapture.Config.class)
+class IndexUsageTests {
+
+	// At or below this row estimate MySQL may scan rather than use the index
+	private static final long NEAR_EMPTY_TABLE_ROWS = 100;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private LeadRepository leadRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OtpVerificationRepository otpVerificationRepository;
+
+	@Autowired
+	private ChatbotMessageRepository chatbotMessageRepository;
+
+	@Test
+	void listedProductsUseListingIndex() {
+		assertChoosesIndex("idx_product_listed_created",
+				() -> productRepository.findListedBefore(LocalDateTime.now(), Long.MAX_VALUE, Limit.of(13)));
+	}
+
+	@Test
+	void categoryListingUsesCategoryIndex() {
+		assertChoosesIndex("idx_product_category_listed",
+				() -> productRepository.findAll(Specification.allOf(
+								ProductSpecifications.isListed(),
+								ProductSpecifications.hasCategoryName("electronics")),
+						PageRequest.of(0, 12, Sort.by(Sort.Direction.DESC, "createdAt"))));
+	}
+
+	@Test
+	void paymentLookupUsesRazorpayIndex() {
+		assertChoosesIndex("uk_orders_razorpay_order_id",
+				() -> orderRepository.findByRazorpayOrderId("order_test"));
+	}
+
+	@Test
+	void userOrderHistoryUsesUserCreatedIndex() {
+		assertChoosesIndex("idx_orders_user_created",
+				() -> orderRepository.findUserOrdersBefore(1L, LocalDateTime.now(), Long.MAX_VALUE, Limit.of(21)));
+	}
+
+	@Test
+	void vendorOrdersUseOrderItemVendorIndex() {
+		assertChoosesIndex("idx_order_item_vendor_order",
+				() -> orderRepository.findVendorOrdersBefore(1L, LocalDateTime.now(), Long.MAX_VALUE, Limit.of(21)));
+	}
+
+	@Test
+	void vendorLeadsUseVendorStatusIndex() {
+		User vendor = userRepository.getReferenceById(1L);
+		assertChoosesIndex("idx_leads_vendor_status", () -> leadRepository.getLeadStatsByVendor(vendor));
+	}
+
+	@Test
+	void otpLookupUsesEmailOrPhoneIndex() {
+		assertChoosesIndex("uk_otp_verification_email_or_phone",
+				() -> otpVerificationRepository.findByEmailOrPhone("user@example.com"));
+	}
+
+	@Test
+	void chatbotHistoryUsesSessionIndex() {
+		assertChoosesIndex("idx_chatbot_message_session_created",
+				() -> chatbotMessageRepository.findBySessionIdOrderByCreatedAtAsc("abc"));
+	}
+
+	private void assertChoosesIndex(String indexName, Runnable repositoryCall) {
+		List<CapturedStatement> queries = StatementCapture.capture(repositoryCall).stream()
+				.filter(CapturedStatement::isSelect)
+				.toList();
+		assertFalse(queries.isEmpty(), "The repository call sent no SELECT");
+
+		List<List<Map<String, Object>>> plans = new ArrayList<>();
+		for (CapturedStatement query : queries) {
+			List<Map<String, Object>> plan = jdbcTemplate.queryForList(
+					"EXPLAIN " + query.sql(), query.parameters().values().toArray());
+			if (plan.stream().anyMatch(row -> usesIndex(row, indexName))) {
+				return;
+			}
+			plans.add(plan);
+		}
+		fail("Expected " + indexName + " as the chosen key for " + queries + ", plans were " + plans);
+	}
+
+	/**
+	 * The index is the chosen key; or, when the optimizer expects to read only
+	 * a handful of rows (an almost empty test table, where a scan is cheaper),
+	 * it is at least among possible_keys. On a populated table the index must
+	 * actually be chosen.
+	 */
+	private static boolean usesIndex(Map<String, Object> row, String indexName) {
+		if (indexName.equals(row.get("key"))) {
+			return true;
+		}
+		Object possibleKeys = row.get("possible_keys");
+		Object rows = row.get("rows");
+		return possibleKeys != null && rows instanceof Number estimate
+				&& estimate.longValue() <= NEAR_EMPTY_TABLE_ROWS
+				&& List.of(possibleKeys.toString().split(",")).contains(indexName);
+	}
+}
@@ -0,0 +1,81 @@
+package com.itech.itech_backend.repository;
+
+import com.itech.itech_backend.model.OtpVerification;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The conditional attempt counter and the one-row-per-contact insert, run
+ * against MySQL since both depend on how it evaluates the statements
+ */
+@SpringBootTest
+class OtpVerificationRepositoryTests {
+
+	private static final int MAX_ATTEMPTS = 3;
+	private static final long WINDOW_SECONDS = 900;
+
+	@Autowired
+	private OtpVerificationRepository otpRepo;
+
+	private final String contact = "otp-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+
+	@AfterEach
+	void cleanUp() {
+		otpRepo.deleteByEmailOrPhone(contact);
+	}
+
+	@Test
+	void recordAttemptStopsAtTheLimitWithinTheWindow() {
+		LocalDateTime now = LocalDateTime.now();
+		Long id = saveOtp().getId();
+
+		for (int i = 0; i < MAX_ATTEMPTS; i++) {
+			assertEquals(1, otpRepo.recordAttempt(id, MAX_ATTEMPTS, now.minusSeconds(WINDOW_SECONDS), now));
+		}
+		assertEquals(0, otpRepo.recordAttempt(id, MAX_ATTEMPTS, now.minusSeconds(WINDOW_SECONDS), now));
+
+		OtpVerification stored = otpRepo.findById(id).orElseThrow();
+		assertEquals(MAX_ATTEMPTS, stored.getAttempts());
+	}
+
+	@Test
+	void recordAttemptStartsANewWindowOnceTheOldOneLapsed() {
+		LocalDateTime start = LocalDateTime.now().withNano(0);
+		Long id = saveOtp().getId();
+		for (int i = 0; i < MAX_ATTEMPTS; i++) {
+			otpRepo.recordAttempt(id, MAX_ATTEMPTS, start.minusSeconds(WINDOW_SECONDS), start);
+		}
+
+		LocalDateTime later = start.plusSeconds(WINDOW_SECONDS + 1);
+		assertEquals(1, otpRepo.recordAttempt(id, MAX_ATTEMPTS, later.minusSeconds(WINDOW_SECONDS), later));
+
+		OtpVerification stored = otpRepo.findById(id).orElseThrow();
+		assertEquals(1, stored.getAttempts());
+		assertEquals(later, stored.getAttemptsSince());
+	}
+
+	@Test
+	void insertIfAbsentKeepsOneRowPerContact() {
+		otpRepo.insertIfAbsent(contact);
+		otpRepo.insertIfAbsent(contact);
+
+		long rows = otpRepo.findAll().stream().filter(o -> contact.equals(o.getEmailOrPhone())).count();
+		assertEquals(1, rows);
+	}
+
+	private OtpVerification saveOtp() {
+		return otpRepo.save(OtpVerification.builder()
+				.emailOrPhone(contact)
+				.otp("123456")
+				.expiryTime(LocalDateTime.now().plusMinutes(5))
+				.sentAt(LocalDateTime.now())
+				.build());
+	}
+}
@@ -0,0 +1,177 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.controller.CheckoutController;
+import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.dto.CheckoutJobDto;
+import com.itech.itech_backend.enums.CheckoutJobStatus;
+import com.itech.itech_backend.util.JwtTokenUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plain unit tests on a one-thread executor with no queue; createOrder is
+ * stubbed to block until the test lets it finish
+ */
+class CheckoutJobServiceTests {
+
+	private static final Long USER = 7L;
+	private static final Long OTHER_USER = 8L;
+
+	private final CountDownLatch orderStarted = new CountDownLatch(1);
+	private final CountDownLatch finishOrder = new CountDownLatch(1);
+	private final AtomicInteger ordersCreated = new AtomicInteger();
+	private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+	private CheckoutJobService checkoutJobService;
+
+	@BeforeEach
+	void setUp() {
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(0);
+		executor.initialize();
+
+		OrderService orderService = new OrderService(null, null, null, null, null, null, null, null, null,
+				null, null, null) {
+			@Override
+			public Map<String, Object> createOrder(Long userId, CheckoutDto checkoutDto) {
+				orderStarted.countDown();
+				await(finishOrder);
+				return Map.of("orderId", (long) ordersCreated.incrementAndGet(),
+						"orderNumber", "ORD-" + ordersCreated.get(), "orderStatus", "PENDING");
+			}
+		};
+		checkoutJobService = new CheckoutJobService(orderService, executor);
+		ReflectionTestUtils.setField(checkoutJobService, "jobRetentionMinutes", 30L);
+		ReflectionTestUtils.setField(checkoutJobService, "maxJobs", 100);
+		checkoutJobService.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		finishOrder.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	void secondSubmitWhileInFlightReturnsTheSameCheckout() throws InterruptedException {
+		CheckoutJobDto first = checkoutJobService.submit(USER, new CheckoutDto());
+		assertTrue(orderStarted.await(5, TimeUnit.SECONDS));
+
+		CheckoutJobDto second = checkoutJobService.submit(USER, new CheckoutDto());
+
+		assertEquals(first.getCheckoutId(), second.getCheckoutId());
+		assertEquals(1L, checkoutJobService.getStats().get("submitted"));
+
+		finishOrder.countDown();
+		CheckoutJobDto completed = awaitFinished(first.getCheckoutId());
+		assertEquals(CheckoutJobStatus.COMPLETED, completed.getStatus());
+		assertEquals(1, ordersCreated.get());
+	}
+
+	@Test
+	void userCanCheckOutAgainOnceTheFirstCheckoutFinished() throws InterruptedException {
+		finishOrder.countDown();
+		CheckoutJobDto first = checkoutJobService.submit(USER, new CheckoutDto());
+		awaitFinished(first.getCheckoutId());
+
+		CheckoutJobDto second = submitOnceIdle(USER);
+
+		assertNotEquals(first.getCheckoutId(), second.getCheckoutId());
+	}
+
+	@Test
+	void fullExecutorRejectsAndForgetsTheCheckout() throws InterruptedException {
+		checkoutJobService.submit(USER, new CheckoutDto());
+		assertTrue(orderStarted.await(5, TimeUnit.SECONDS));
+
+		assertThrows(TaskRejectedException.class, () -> checkoutJobService.submit(OTHER_USER, new CheckoutDto()));
+		assertEquals(1L, checkoutJobService.getStats().get("rejected"));
+		assertEquals(1, checkoutJobService.getStats().get("inFlight"));
+
+		// The rejected user is not left holding a phantom in-flight checkout
+		finishOrder.countDown();
+		CheckoutJobDto retried = submitOnceIdle(OTHER_USER);
+		assertEquals(CheckoutJobStatus.COMPLETED, awaitFinished(retried.getCheckoutId(), OTHER_USER).getStatus());
+	}
+
+	@Test
+	void controllerAnswersServiceUnavailableWhenTheExecutorIsFull() throws InterruptedException {
+		CheckoutController controller = new CheckoutController(null, null, null, checkoutJobService,
+				new JwtTokenUtil() {
+					@Override
+					public Long extractUserIdFromRequest(HttpServletRequest request) {
+						return Long.valueOf(request.getHeader("X-Test-User"));
+					}
+				});
+		assertEquals(HttpStatus.ACCEPTED,
+				controller.processCheckoutAsync(new CheckoutDto(), requestFor(USER)).getStatusCode());
+		assertTrue(orderStarted.await(5, TimeUnit.SECONDS));
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+				controller.processCheckoutAsync(new CheckoutDto(), requestFor(OTHER_USER)).getStatusCode());
+	}
+
+	private CheckoutJobDto awaitFinished(String checkoutId) throws InterruptedException {
+		return awaitFinished(checkoutId, USER);
+	}
+
+	private CheckoutJobDto awaitFinished(String checkoutId, Long userId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		CheckoutJobDto job = checkoutJobService.getJob(checkoutId, userId);
+		while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			job = checkoutJobService.getJob(checkoutId, userId);
+		}
+		assertTrue(job.getStatus().isFinished(), "Checkout did not finish: " + job);
+		return job;
+	}
+
+	// The job is marked finished just before the worker frees the user and goes back to the queue
+	private CheckoutJobDto submitOnceIdle(Long userId) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (true) {
+			if ((int) checkoutJobService.getStats().get("inFlight") == 0) {
+				try {
+					return checkoutJobService.submit(userId, new CheckoutDto());
+				} catch (TaskRejectedException e) {
+					if (System.nanoTime() > deadline) {
+						throw e;
+					}
+				}
+			}
+			assertTrue(System.nanoTime() < deadline, "Earlier checkout never finished");
+			Thread.sleep(10);
+		}
+	}
+
+	private static MockHttpServletRequest requestFor(Long userId) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("X-Test-User", userId.toString());
+		return request;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
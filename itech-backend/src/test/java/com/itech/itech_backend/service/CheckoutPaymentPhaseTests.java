@@ -0,0 +1,168 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.model.Cart;
+import com.itech.itech_backend.model.Order;
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.model.User;
+import com.itech.itech_backend.repository.CartItemRepository;
+import com.itech.itech_backend.repository.OrderRepository;
+import com.itech.itech_backend.support.CheckoutFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs checkout against a stub Razorpay gateway with injected latency to check
+ * that the gateway call holds no transaction or row lock, and that a failed
+ * call cancels the order and returns its stock.
+ */
+@SpringBootTest
+@Import(CheckoutFixture.class)
+class CheckoutPaymentPhaseTests {
+
+	private static final int STOCK = 20;
+	private static final long GATEWAY_LATENCY_MS = 1500;
+
+	@TestConfiguration
+	static class StubGatewayConfig {
+		@Bean
+		@Primary
+		StubPaymentGateway stubPaymentGateway() {
+			return new StubPaymentGateway();
+		}
+	}
+
+	static class StubPaymentGateway extends PaymentService {
+		volatile boolean fail;
+		volatile boolean transactionActiveDuringCall;
+		volatile Runnable duringCall = () -> { };
+
+		@Override
+		public Map<String, Object> createOrder(String orderNumber, BigDecimal amount, String customerEmail, String customerPhone) {
+			transactionActiveDuringCall = TransactionSynchronizationManager.isActualTransactionActive();
+			duringCall.run();
+			try {
+				Thread.sleep(GATEWAY_LATENCY_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (fail) {
+				throw new RuntimeException("Failed to create payment order: gateway timeout");
+			}
+			Map<String, Object> response = new HashMap<>();
+			response.put("razorpayOrderId", "order_stub_" + UUID.randomUUID().toString().substring(0, 12));
+			response.put("amount", amount.multiply(BigDecimal.valueOf(100)).intValue());
+			response.put("currency", "INR");
+			return response;
+		}
+	}
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private StubPaymentGateway gateway;
+
+	@Autowired
+	private CartItemRepository cartItemRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private CheckoutFixture fixture;
+
+	private User buyer;
+	private Product product;
+	private Cart cart;
+
+	@BeforeEach
+	void createCart() {
+		product = fixture.product("Gateway Item", 300.0, STOCK);
+		fixture.addToCart(product, 3);
+		buyer = fixture.buyer();
+		cart = fixture.cart();
+		gateway.fail = false;
+		gateway.duringCall = () -> { };
+	}
+
+	@AfterEach
+	void cleanUp() {
+		gateway.fail = false;
+		gateway.duringCall = () -> { };
+		fixture.cleanUp();
+	}
+
+	@Test
+	void gatewayCallRunsOutsideTransaction() {
+		Map<String, Object> seenDuringCall = new HashMap<>();
+		gateway.duringCall = () -> {
+			// The order and stock reservation are already committed
+			seenDuringCall.put("status", jdbcTemplate.queryForObject(
+					"SELECT status FROM orders WHERE user_id = ?", String.class, buyer.getId()));
+			seenDuringCall.put("stock", stock());
+			// Another writer can take the product row lock straight away
+			CompletableFuture<Integer> update = CompletableFuture.supplyAsync(() ->
+					jdbcTemplate.update("UPDATE product SET view_count = view_count + 1 WHERE id = ?", product.getId()));
+			seenDuringCall.put("rowUpdated", update.orTimeout(1, TimeUnit.SECONDS).join());
+		};
+
+		Map<String, Object> response = orderService.createOrder(buyer.getId(), onlineCheckout());
+
+		assertFalse(gateway.transactionActiveDuringCall);
+		assertEquals("PENDING", seenDuringCall.get("status"));
+		assertEquals(STOCK - 3, seenDuringCall.get("stock"));
+		assertEquals(1, seenDuringCall.get("rowUpdated"));
+
+		Order order = orderRepository.findById((Long) response.get("orderId")).orElseThrow();
+		assertNotNull(order.getRazorpayOrderId());
+		assertEquals(response.get("razorpayOrderId"), order.getRazorpayOrderId());
+		assertEquals(0, cartItemRepository.findByCartId(cart.getId()).size());
+	}
+
+	@Test
+	void gatewayFailureCancelsOrderAndReleasesStock() {
+		gateway.fail = true;
+
+		assertThrows(RuntimeException.class, () -> orderService.createOrder(buyer.getId(), onlineCheckout()));
+
+		Order order = orderRepository.findByUserIdOrderByCreatedAtDesc(buyer.getId()).get(0);
+		assertEquals(Order.OrderStatus.CANCELLED, order.getStatus());
+		assertEquals(Order.PaymentStatus.FAILED, order.getPaymentStatus());
+		assertEquals(STOCK, stock());
+		// The buyer keeps their cart and can retry
+		assertEquals(1, cartItemRepository.findByCartId(cart.getId()).size());
+	}
+
+	private int stock() {
+		return jdbcTemplate.queryForObject("SELECT stock FROM product WHERE id = ?", Integer.class, product.getId());
+	}
+
+	private CheckoutDto onlineCheckout() {
+		return CheckoutFixture.checkout("RAZORPAY");
+	}
+}
@@ -0,0 +1,58 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.support.CheckoutFixture;
+import com.itech.itech_backend.support.StatementCapture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the JDBC statements one COD checkout of a multi-line cart prepares,
+ * so order persistence stays a small, fixed number of round trips.
+ */
+@SpringBootTest
+@Import({StatementCapture.Config.class, CheckoutFixture.class})
+class CheckoutStatementCountTests {
+
+	private static final int CART_LINES = 10;
+	private static final int MAX_STATEMENTS_PER_CHECKOUT = 10;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private CheckoutFixture fixture;
+
+	@BeforeEach
+	void createCart() {
+		for (int i = 0; i < CART_LINES; i++) {
+			fixture.addToCart(fixture.product("Item " + i, 100.0, 50), 2);
+		}
+	}
+
+	@AfterEach
+	void cleanUp() {
+		fixture.cleanUp();
+	}
+
+	@Test
+	void checkoutUsesBoundedStatements() {
+		AtomicReference<Map<String, Object>> response = new AtomicReference<>();
+		List<StatementCapture.CapturedStatement> statements = StatementCapture.capture(() ->
+				response.set(orderService.createOrder(fixture.buyer().getId(), CheckoutFixture.checkout("COD"))));
+
+		assertTrue(response.get().containsKey("orderId"));
+		assertTrue(statements.size() <= MAX_STATEMENTS_PER_CHECKOUT,
+				"Checkout of " + CART_LINES + " cart lines prepared " + statements.size()
+						+ " statements, expected at most " + MAX_STATEMENTS_PER_CHECKOUT + ": " + statements);
+	}
+}
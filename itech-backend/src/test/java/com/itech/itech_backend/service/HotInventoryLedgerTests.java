@@ -0,0 +1,120 @@
+package com.itech.itech_backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Plain unit tests on the in-memory counters; transactions are simulated by
+ * driving the registered synchronizations by hand, so no database is needed
+ */
+class HotInventoryLedgerTests {
+
+	private static final Long USER = 7L;
+	private static final Long PRODUCT = 1L;
+	private static final Long SCARCE_PRODUCT = 2L;
+
+	private final Map<Long, Integer> released = new HashMap<>();
+	private final HotInventoryLedger ledger = new HotInventoryLedger(null, null, null,
+			new StockReservationService(null) {
+				@Override
+				public void release(Map<Long, Integer> quantities) {
+					quantities.forEach((productId, quantity) -> released.merge(productId, quantity, Integer::sum));
+				}
+			});
+
+	@BeforeEach
+	void trackProduct() {
+		ReflectionTestUtils.setField(ledger, "holdTtlSeconds", 900L);
+		ledger.track(Map.of(PRODUCT, 10, SCARCE_PRODUCT, 1));
+	}
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void saleCommittingAfterTrackingStopsIsQueuedNotLost() {
+		TransactionSynchronizationManager.initSynchronization();
+		ledger.commit(USER, Map.of(PRODUCT, 3));
+
+		ledger.stopTracking();
+		complete(TransactionSynchronization.STATUS_COMMITTED);
+
+		assertFalse(ledger.isHot(PRODUCT));
+		assertEquals(3, ledger.getStats().get("untrackedPendingSales"));
+	}
+
+	@Test
+	void returningASaleAfterTrackingStopsReleasesItInTheDatabase() {
+		ledger.commit(USER, Map.of(PRODUCT, 3));
+		ledger.stopTracking();
+
+		ledger.returnSale(Map.of(PRODUCT, 3));
+
+		assertEquals(Map.of(PRODUCT, 3), released);
+	}
+
+	@Test
+	void rolledBackHoldChangeIsUndone() {
+		ledger.hold(USER, PRODUCT, 2);
+
+		TransactionSynchronizationManager.initSynchronization();
+		ledger.hold(USER, PRODUCT, 5);
+		assertEquals(5, available());
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(8, available());
+	}
+
+	@Test
+	void rolledBackNewHoldLeavesNoHold() {
+		TransactionSynchronizationManager.initSynchronization();
+		ledger.hold(USER, PRODUCT, 5);
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(10, available());
+		assertEquals(0, ledger.getStats().get("activeHolds"));
+	}
+
+	@Test
+	void failedBulkUpdateRollsBackEveryHold() {
+		ledger.hold(USER, PRODUCT, 2);
+
+		// As in CartService.applyBulk: the first line's hold moves, the second cannot be taken
+		TransactionSynchronizationManager.initSynchronization();
+		ledger.hold(USER, PRODUCT, 5);
+		assertThrows(StockReservationService.InsufficientStockException.class,
+				() -> ledger.hold(USER, SCARCE_PRODUCT, 3));
+		complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertEquals(8, available());
+		assertEquals(1, ledger.getStats().get("activeHolds"));
+	}
+
+	private void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		TransactionSynchronizationManager.clearSynchronization();
+		synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+	}
+
+	@SuppressWarnings("unchecked")
+	private int available() {
+		Map<String, Object> products = (Map<String, Object>) ledger.getStats().get("products");
+		return (Integer) ((Map<String, Object>) products.get(String.valueOf(PRODUCT))).get("available");
+	}
+}
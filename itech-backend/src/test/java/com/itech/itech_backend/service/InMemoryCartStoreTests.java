@@ -0,0 +1,90 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.dto.CartDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Plain unit tests; the store needs no Spring context
+ */
+class InMemoryCartStoreTests {
+
+	private static final String GUEST_CART = "7d3f8c1e-2b4a-4f6d-9e0a-1c2b3d4e5f60";
+	private static final int THREADS = 8;
+	private static final int LINES_PER_THREAD = 250;
+
+	private final InMemoryCartStore store = new InMemoryCartStore();
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(store, "maxSize", 100);
+		ReflectionTestUtils.setField(store, "userTtlSeconds", 30L);
+		ReflectionTestUtils.setField(store, "idleTtlMinutes", 30L);
+		store.init();
+	}
+
+	@Test
+	void concurrentGuestUpdatesKeepEveryLine() throws Exception {
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < LINES_PER_THREAD; i++) {
+						long productId = thread * LINES_PER_THREAD + i;
+						store.updateGuestCart(GUEST_CART, cart -> withLine(cart, productId));
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(THREADS * LINES_PER_THREAD, store.getGuestCart(GUEST_CART).getItems().size());
+	}
+
+	@Test
+	void failedGuestUpdateLeavesTheCartAsItWas() {
+		store.updateGuestCart(GUEST_CART, cart -> withLine(cart, 1L));
+
+		assertThrows(IllegalStateException.class, () -> store.updateGuestCart(GUEST_CART, cart -> {
+			throw new IllegalStateException("insufficient stock");
+		}));
+		assertEquals(1, store.getGuestCart(GUEST_CART).getItems().size());
+	}
+
+	@Test
+	void failedFirstUpdateCreatesNoCart() {
+		assertThrows(IllegalStateException.class, () -> store.updateGuestCart(GUEST_CART, cart -> {
+			throw new IllegalStateException("Cart item not found");
+		}));
+		assertNull(store.getGuestCart(GUEST_CART));
+	}
+
+	private static CartDto withLine(CartDto cart, long productId) {
+		List<CartDto.CartItemDto> items = new ArrayList<>(cart != null ? cart.getItems() : List.of());
+		items.add(CartDto.CartItemDto.builder().id(productId).productId(productId).quantity(1).price(10.0).build());
+		return CartDto.builder().items(items).totalItems(items.size()).build();
+	}
+}
@@ -0,0 +1,133 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.enums.OtpVerifyResult;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plain unit tests on a manual clock; the store needs no Spring context or database
+ */
+class InMemoryOtpStoreTests {
+
+	private static final long TTL_MS = 300_000;
+	private static final long RESEND_MS = 30_000;
+	private static final long LOCKOUT_MS = 900_000;
+	private static final String CONTACT = "buyer@example.com";
+
+	private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+	private final InMemoryOtpStore store = new InMemoryOtpStore(TTL_MS, 3, RESEND_MS, LOCKOUT_MS, now::get);
+
+	@Test
+	void correctOtpVerifiesOnce() {
+		assertTrue(store.issue(CONTACT, "123456"));
+
+		assertEquals(OtpVerifyResult.VERIFIED, store.verify(CONTACT, "123456"));
+		assertEquals(OtpVerifyResult.NOT_FOUND, store.verify(CONTACT, "123456"));
+	}
+
+	@Test
+	void wrongGuessesLockTheOtp() {
+		store.issue(CONTACT, "123456");
+
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000000"));
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000001"));
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000002"));
+		assertEquals(OtpVerifyResult.TOO_MANY_ATTEMPTS, store.verify(CONTACT, "123456"));
+	}
+
+	@Test
+	void resendIsThrottled() {
+		store.issue(CONTACT, "123456");
+
+		assertFalse(store.issue(CONTACT, "654321"));
+		now.addAndGet(RESEND_MS);
+		assertTrue(store.issue(CONTACT, "654321"));
+		assertEquals(OtpVerifyResult.VERIFIED, store.verify(CONTACT, "654321"));
+	}
+
+	@Test
+	void failedAttemptsSurviveReissueUntilTheLockoutWindowPasses() {
+		store.issue(CONTACT, "123456");
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000000"));
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000001"));
+
+		now.addAndGet(RESEND_MS);
+		assertTrue(store.issue(CONTACT, "654321"));
+		assertEquals(OtpVerifyResult.MISMATCH, store.verify(CONTACT, "000002"));
+
+		// Locked out: no new code and no more guesses, even at the right one
+		now.addAndGet(RESEND_MS);
+		assertFalse(store.issue(CONTACT, "111111"));
+		assertEquals(OtpVerifyResult.TOO_MANY_ATTEMPTS, store.verify(CONTACT, "654321"));
+
+		// The wheel keeps the entry for the whole window, even after the OTP expired
+		now.addAndGet(TTL_MS);
+		store.advance();
+		assertEquals(1, store.getStats().get("entries"));
+		assertFalse(store.issue(CONTACT, "111111"));
+
+		now.set(now.get() - 2 * RESEND_MS - TTL_MS + LOCKOUT_MS);
+		assertTrue(store.issue(CONTACT, "111111"));
+		assertEquals(OtpVerifyResult.VERIFIED, store.verify(CONTACT, "111111"));
+	}
+
+	@Test
+	void wheelRemovesExpiredEntries() {
+		store.issue(CONTACT, "123456");
+		store.issue("+919800000000", "222222");
+
+		now.addAndGet(TTL_MS - 1);
+		store.advance();
+		assertEquals(2, store.getStats().get("entries"));
+		assertEquals(OtpVerifyResult.VERIFIED, store.verify(CONTACT, "123456"));
+
+		now.addAndGet(InMemoryOtpStore.TICK_MILLIS + 1);
+		assertEquals(OtpVerifyResult.EXPIRED, store.verify("+919800000000", "222222"));
+		store.advance();
+		assertEquals(0, store.getStats().get("entries"));
+		assertEquals(2L, store.getStats().get("expired"));
+	}
+
+	@Test
+	void entriesLongerThanOneTurnSurviveEarlierVisits() {
+		InMemoryOtpStore longLived = new InMemoryOtpStore(3_600_000, 3, RESEND_MS, LOCKOUT_MS, now::get);
+		longLived.issue(CONTACT, "123456");
+
+		for (int minute = 1; minute < 60; minute++) {
+			now.addAndGet(60_000);
+			longLived.advance();
+		}
+		assertEquals(OtpVerifyResult.VERIFIED, longLived.verify(CONTACT, "123456"));
+
+		now.addAndGet(60_000 + InMemoryOtpStore.TICK_MILLIS);
+		longLived.advance();
+		assertEquals(0, longLived.getStats().get("entries"));
+	}
+
+	// Timing bound depends on the machine; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void verifyTakesMicroseconds() {
+		int contacts = 10_000;
+		for (int i = 0; i < contacts; i++) {
+			store.issue("user" + i + "@example.com", String.format("%06d", i));
+		}
+		for (int i = 0; i < contacts; i++) {
+			store.verify("user" + i + "@example.com", "999999");
+		}
+
+		long start = System.nanoTime();
+		for (int i = 0; i < contacts; i++) {
+			store.verify("user" + i + "@example.com", String.format("%06d", i));
+		}
+		double microsPerVerify = (System.nanoTime() - start) / 1_000.0 / contacts;
+		System.out.printf("In-memory OTP verify: %.2f us per call (%d contacts)%n", microsPerVerify, contacts);
+		assertTrue(microsPerVerify < 100, "verify took " + microsPerVerify + " us");
+	}
+}
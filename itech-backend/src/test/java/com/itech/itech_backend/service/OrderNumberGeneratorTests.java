@@ -0,0 +1,152 @@
+package com.itech.itech_backend.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plain unit tests; the generator needs no Spring context or database
+ */
+class OrderNumberGeneratorTests {
+
+	private static final int THREADS = 16;
+	private static final int IDS_PER_THREAD = 100_000;
+
+	@Test
+	void idsAreUniqueAndIncreasingAcrossThreads() throws Exception {
+		OrderNumberGenerator generator = new OrderNumberGenerator(7, System::currentTimeMillis);
+		Set<Long> ids = ConcurrentHashMap.newKeySet();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					long previous = -1;
+					boolean increasing = true;
+					for (int i = 0; i < IDS_PER_THREAD; i++) {
+						long id = generator.nextId();
+						increasing &= id > previous;
+						previous = id;
+						ids.add(id);
+					}
+					return increasing;
+				}));
+			}
+			start.countDown();
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get(60, TimeUnit.SECONDS), "ids must increase within a thread");
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(THREADS * IDS_PER_THREAD, ids.size());
+	}
+
+	@Test
+	void nodesNeverCollide() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		OrderNumberGenerator first = new OrderNumberGenerator(1, clock::get);
+		OrderNumberGenerator second = new OrderNumberGenerator(2, clock::get);
+		Set<Long> ids = new HashSet<>();
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(ids.add(first.nextId()));
+			assertTrue(ids.add(second.nextId()));
+		}
+	}
+
+	@Test
+	void clockGoingBackwardsKeepsIdsIncreasing() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		OrderNumberGenerator generator = new OrderNumberGenerator(3, clock::get);
+		long before = generator.nextId();
+		clock.addAndGet(-5_000);
+		long after = generator.nextId();
+		assertTrue(after > before);
+	}
+
+	@Test
+	void exhaustedSequenceMovesToNextMillisecond() {
+		AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+		OrderNumberGenerator generator = new OrderNumberGenerator(4, clock::get);
+		Set<Long> ids = new HashSet<>();
+		long previous = -1;
+		// Frozen clock: more ids than one millisecond's sequence holds
+		for (int i = 0; i < 3 * (OrderNumberGenerator.MAX_SEQUENCE + 1); i++) {
+			long id = generator.nextId();
+			assertTrue(id > previous);
+			assertTrue(ids.add(id));
+			previous = id;
+		}
+	}
+
+	@Test
+	void orderNumbersSortAsText() {
+		OrderNumberGenerator generator = new OrderNumberGenerator(5, System::currentTimeMillis);
+		String previous = generator.nextOrderNumber();
+		for (int i = 0; i < 1000; i++) {
+			String next = generator.nextOrderNumber();
+			assertEquals(previous.length(), next.length());
+			assertTrue(next.compareTo(previous) > 0);
+			previous = next;
+		}
+	}
+
+	@Test
+	void rejectsNodeIdOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(1024, System::currentTimeMillis));
+		assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(-1, System::currentTimeMillis));
+	}
+
+	// Prints numbers rather than asserting; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void throughputBenchmark() throws Exception {
+		OrderNumberGenerator generator = new OrderNumberGenerator(6, System::currentTimeMillis);
+		for (int i = 0; i < 200_000; i++) {
+			generator.nextOrderNumber();
+		}
+
+		int total = THREADS * IDS_PER_THREAD;
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < IDS_PER_THREAD; i++) {
+						generator.nextOrderNumber();
+					}
+					return null;
+				}));
+			}
+			long startedAt = System.nanoTime();
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+			double seconds = (System.nanoTime() - startedAt) / 1e9;
+			System.out.printf("Generated %d order numbers on %d threads in %.3f s (%.0f per second)%n",
+					total, THREADS, seconds, total / seconds);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plain unit tests of the incremental trie updates; no database involved
+ */
+class ProductSuggestServiceTests {
+
+	private final ProductSuggestService service = newService();
+
+	@Test
+	void productChangesShowUpWithoutARebuild() {
+		service.index(product(1L, "Smart Phone", 0));
+		service.index(product(2L, "Smart Watch", 50));
+
+		assertEquals(List.of("Smart Watch", "Smart Phone"), service.suggest("sma", 10));
+		assertEquals(List.of("Smart Phone"), service.suggest("pho", 10));
+
+		service.index(product(1L, "Smart Phone", 100));
+		assertEquals(List.of("Smart Phone", "Smart Watch"), service.suggest("smart", 10));
+	}
+
+	@Test
+	void removedPhrasesDisappear() {
+		service.index(product(1L, "Desk Lamp", 0));
+		service.index(product(2L, "Desk Chair", 0));
+
+		service.remove(1L);
+		assertEquals(List.of("Desk Chair"), service.suggest("desk", 10));
+		assertTrue(service.suggest("lamp", 10).isEmpty());
+
+		service.index(product(2L, "Office Chair", 0));
+		assertTrue(service.suggest("desk", 10).isEmpty());
+		assertEquals(List.of("Office Chair"), service.suggest("chair", 10));
+	}
+
+	@Test
+	void sharedPhrasesKeepTheirOtherContributors() {
+		service.index(product(1L, "Headphones", 0));
+		service.index(product(2L, "Headphones", 0));
+
+		service.remove(1L);
+		assertEquals(List.of("Headphones"), service.suggest("head", 10));
+	}
+
+	private static ProductSuggestService newService() {
+		ProductSuggestService service = new ProductSuggestService(null);
+		ReflectionTestUtils.setField(service, "suggestEnabled", true);
+		return service;
+	}
+
+	private static Product product(Long id, String name, int viewCount) {
+		Product product = Product.builder().name(name).viewCount(viewCount).isApproved(true).build();
+		product.setId(id);
+		return product;
+	}
+}
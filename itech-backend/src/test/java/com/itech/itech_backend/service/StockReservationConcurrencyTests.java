@@ -0,0 +1,95 @@
+package com.itech.itech_backend.service;
+
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.repository.ProductRepository;
+import com.itech.itech_backend.support.CheckoutFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 1000 concurrent single-unit checkouts against a product with 100 in stock:
+ * exactly 100 must succeed and stock must end at zero.
+ */
+@SpringBootTest
+@Import(CheckoutFixture.class)
+class StockReservationConcurrencyTests {
+
+	private static final int INITIAL_STOCK = 100;
+	private static final int CHECKOUTS = 1000;
+	private static final int THREADS = 64;
+
+	@Autowired
+	private StockReservationService stockReservationService;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private CheckoutFixture fixture;
+
+	private Product product;
+
+	@BeforeEach
+	void createProduct() {
+		product = fixture.product("Hot SKU", 10.0, INITIAL_STOCK);
+	}
+
+	@AfterEach
+	void deleteProduct() {
+		fixture.cleanUp();
+	}
+
+	@Test
+	void concurrentCheckoutsNeverOversell() throws Exception {
+		AtomicInteger succeeded = new AtomicInteger();
+		AtomicInteger rejected = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		List<Future<?>> futures = new ArrayList<>();
+		for (int i = 0; i < CHECKOUTS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					transactionTemplate.executeWithoutResult(status ->
+							stockReservationService.reserve(Map.of(product.getId(), 1)));
+					succeeded.incrementAndGet();
+				} catch (StockReservationService.InsufficientStockException e) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+		assertEquals(INITIAL_STOCK, succeeded.get());
+		assertEquals(CHECKOUTS - INITIAL_STOCK, rejected.get());
+		assertEquals(0, reloaded.getStock());
+		assertEquals(INITIAL_STOCK, reloaded.getOrderCount());
+	}
+}
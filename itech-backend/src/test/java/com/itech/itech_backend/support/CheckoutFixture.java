@@ -0,0 +1,119 @@
+package com.itech.itech_backend.support;
+
+import com.itech.itech_backend.dto.CheckoutDto;
+import com.itech.itech_backend.model.Cart;
+import com.itech.itech_backend.model.CartItem;
+import com.itech.itech_backend.model.Category;
+import com.itech.itech_backend.model.Product;
+import com.itech.itech_backend.model.User;
+import com.itech.itech_backend.repository.CartItemRepository;
+import com.itech.itech_backend.repository.CartRepository;
+import com.itech.itech_backend.repository.CategoryRepository;
+import com.itech.itech_backend.repository.ProductRepository;
+import com.itech.itech_backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Scope;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Vendor, products and a buyer's cart for checkout tests, with unique names so
+ * runs do not collide. Prototype scoped, so each test instance gets its own;
+ * import it into the test and call {@link #cleanUp()} after each test.
+ */
+@TestComponent
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+@RequiredArgsConstructor
+public class CheckoutFixture {
+
+	private final UserRepository userRepository;
+	private final CategoryRepository categoryRepository;
+	private final ProductRepository productRepository;
+	private final CartRepository cartRepository;
+	private final CartItemRepository cartItemRepository;
+	private final JdbcTemplate jdbcTemplate;
+
+	private final String suffix = UUID.randomUUID().toString().substring(0, 8);
+	private final List<Product> products = new ArrayList<>();
+	private User vendor;
+	private User buyer;
+	private Category category;
+	private Cart cart;
+
+	public static CheckoutDto checkout(String paymentMethod) {
+		return CheckoutDto.builder()
+				.paymentMethod(paymentMethod)
+				.shippingAddress(CheckoutDto.AddressDto.builder().fullName("Buyer").addressLine1("1 Test Street")
+						.city("Pune").state("MH").pincode("411001").phone("9999999999").build())
+				.build();
+	}
+
+	/**
+	 * An approved product with free shipping, sold by the fixture's vendor
+	 */
+	public Product product(String name, double price, int stock) {
+		if (vendor == null) {
+			vendor = userRepository.save(User.builder().name("Vendor").email("vendor-" + suffix + "@example.com")
+					.password("unused").role("ROLE_VENDOR").build());
+			category = categoryRepository.save(Category.builder().name("Checkout Test " + suffix).build());
+		}
+		Product product = productRepository.save(Product.builder().name(name + " " + suffix).price(price)
+				.stock(stock).category(category).vendor(vendor).isApproved(true).freeShipping(true).build());
+		products.add(product);
+		return product;
+	}
+
+	/**
+	 * Adds a line at the product's price to the buyer's cart
+	 */
+	public CartItem addToCart(Product product, int quantity) {
+		return cartItemRepository.save(CartItem.builder().cart(cart()).product(product).quantity(quantity)
+				.price(product.getPrice()).build());
+	}
+
+	public User buyer() {
+		if (buyer == null) {
+			buyer = userRepository.save(User.builder().name("Buyer").email("buyer-" + suffix + "@example.com")
+					.password("unused").build());
+		}
+		return buyer;
+	}
+
+	public Cart cart() {
+		if (cart == null) {
+			cart = cartRepository.save(Cart.builder().user(buyer()).build());
+		}
+		return cart;
+	}
+
+	/**
+	 * Deletes the orders placed against the fixture and everything it created
+	 */
+	public void cleanUp() {
+		if (vendor != null) {
+			jdbcTemplate.update("DELETE FROM order_item WHERE vendor_id = ?", vendor.getId());
+		}
+		if (buyer != null) {
+			jdbcTemplate.update("DELETE FROM orders WHERE user_id = ?", buyer.getId());
+		}
+		if (cart != null) {
+			cartItemRepository.deleteByCartId(cart.getId());
+			cartRepository.deleteById(cart.getId());
+		}
+		products.forEach(product -> productRepository.deleteById(product.getId()));
+		if (category != null) {
+			categoryRepository.deleteById(category.getId());
+		}
+		if (buyer != null) {
+			userRepository.deleteById(buyer.getId());
+		}
+		if (vendor != null) {
+			userRepository.deleteById(vendor.getId());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.itech.itech_backend.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Wraps the application DataSource so a test can record every JDBC statement
+ * the current thread prepares, with the values bound to it. Import
+ * {@link Config} into the test and run the code under test through
+ * {@link #capture(Runnable)}.
+ */
+public final class StatementCapture {
+
+	private static final ThreadLocal<List<CapturedStatement>> CAPTURED = new ThreadLocal<>();
+	private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "createStatement", "prepareCall");
+
+	@TestConfiguration
+	public static class Config {
+		@Bean
+		static BeanPostProcessor statementCapturingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					return bean instanceof DataSource dataSource ? capturingProxy(dataSource) : bean;
+				}
+			};
+		}
+	}
+
+	/**
+	 * One statement sent on this thread; sql is null for a plain createStatement
+	 */
+	public record CapturedStatement(String sql, Map<Integer, Object> parameters) {
+
+		public boolean isSelect() {
+			return sql != null && sql.trim().regionMatches(true, 0, "select", 0, 6);
+		}
+	}
+
+	private StatementCapture() {
+	}
+
+	/**
+	 * Statements the call prepared on this thread, in order
+	 */
+	public static List<CapturedStatement> capture(Runnable call) {
+		List<CapturedStatement> statements = new ArrayList<>();
+		CAPTURED.set(statements);
+		try {
+			call.run();
+		} finally {
+			CAPTURED.remove();
+		}
+		return statements;
+	}
+
+	private static DataSource capturingProxy(DataSource target) {
+		return (DataSource) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+				new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+					Object result = invoke(target, method, args);
+					return result instanceof Connection connection ? capturingProxy(connection) : result;
+				});
+	}
+
+	private static Connection capturingProxy(Connection target) {
+		return (Connection) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+				new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+					Object result = invoke(target, method, args);
+					List<CapturedStatement> statements = CAPTURED.get();
+					if (statements == null || !STATEMENT_METHODS.contains(method.getName())) {
+						return result;
+					}
+					String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+					CapturedStatement statement = new CapturedStatement(sql, new TreeMap<>());
+					statements.add(statement);
+					return result instanceof PreparedStatement prepared ? capturingProxy(prepared, statement) : result;
+				});
+	}
+
+	// Records the value bound to each parameter index so the statement can be replayed, e.g. under EXPLAIN
+	private static PreparedStatement capturingProxy(PreparedStatement target, CapturedStatement statement) {
+		Class<?> type = target instanceof CallableStatement ? CallableStatement.class : PreparedStatement.class;
+		return (PreparedStatement) Proxy.newProxyInstance(StatementCapture.class.getClassLoader(),
+				new Class<?>[]{type}, (proxy, method, args) -> {
+					if (method.getName().startsWith("set") && args != null && args.length >= 2
+							&& args[0] instanceof Integer index) {
+						statement.parameters().put(index, method.getName().equals("setNull") ? null : args[1]);
+					}
+					return invoke(target, method, args);
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package com.itech.itech_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plain unit tests; the cache needs no Spring context
+ */
+class ConcurrentBoundedCacheTests {
+
+	private static final int THREADS = 8;
+
+	@Test
+	void returnsCachedValuesAndCountsHits() {
+		ConcurrentBoundedCache<String, String> cache = new ConcurrentBoundedCache<>(10, Duration.ofMinutes(1));
+		cache.put("a", "1");
+
+		assertEquals("1", cache.get("a"));
+		assertNull(cache.get("b"));
+		assertEquals(1L, cache.getStats().get("hits"));
+		assertEquals(1L, cache.getStats().get("misses"));
+	}
+
+	@Test
+	void expiredEntriesAreMissedAndDropped() {
+		ConcurrentBoundedCache<String, String> cache = new ConcurrentBoundedCache<>(10, Duration.ZERO);
+		cache.put("a", "1");
+
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.size());
+		assertEquals(1L, cache.getStats().get("expirations"));
+	}
+
+	@Test
+	void concurrentPutsStayNearTheSizeBound() throws Exception {
+		int maxSize = 1_000;
+		ConcurrentBoundedCache<Integer, Integer> cache = new ConcurrentBoundedCache<>(maxSize, Duration.ofMinutes(1));
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int t = 0; t < THREADS; t++) {
+				int thread = t;
+				results.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < 50_000; i++) {
+						int key = thread * 50_000 + i;
+						cache.put(key, key);
+						cache.get(key);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(60, TimeUnit.SECONDS);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		// Puts that land while a sweep is finishing skip sweeping, so the bound is approximate
+		assertTrue(cache.size() <= maxSize + THREADS, "size " + cache.size());
+		assertTrue((long) cache.getStats().get("evictions") > 0);
+	}
+}
@@ -0,0 +1,198 @@
+package com.itech.itech_backend.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Plain unit tests for the asymmetric JWT mode, plus a tagged sign/verify
+ * throughput comparison of the supported algorithms
+ */
+class JwtKeyRingTests {
+
+	private static final String SECRET = "a1b2c3d4e5f6g7h8i9j0k1l2m3n4o5p6q7r8s9t0u1v2w3x4y5z6a7b8c9d0e1f2";
+	private static final int BENCHMARK_TOKENS = 2_000;
+
+	@TempDir
+	Path keysDirectory;
+
+	@Test
+	void tokensFromRotatedKeysStillVerify() throws Exception {
+		JwtKeyRing keyRing = keyRing(SignatureAlgorithm.RS256);
+		JwtUtil jwtUtil = jwtUtil(keyRing);
+
+		String before = jwtUtil.generateToken("buyer@example.com", "USER", 1L);
+		keyRing.rotate();
+		String after = jwtUtil.generateToken("buyer@example.com", "USER", 1L);
+
+		assertEquals(1L, jwtUtil.verify(before).userId());
+		assertEquals(1L, jwtUtil.verify(after).userId());
+		assertEquals(2, ((List<?>) keyRing.jwks().get("keys")).size());
+	}
+
+	@Test
+	void keysSurviveARestartAndAreSharedThroughTheDirectory() throws Exception {
+		JwtUtil signer = jwtUtil(keyRing(SignatureAlgorithm.ES256));
+		String token = signer.generateToken("buyer@example.com", "USER", 1L);
+
+		// A restarted node, or a second node on the same directory, signs and verifies with the same keys
+		JwtKeyRing otherNode = keyRing(SignatureAlgorithm.ES256);
+		JwtUtil other = jwtUtil(otherNode);
+		assertEquals(1L, other.verify(token).userId());
+
+		otherNode.rotate();
+		String rotated = other.generateToken("buyer@example.com", "USER", 2L);
+		assertEquals(2L, signer.verify(rotated).userId());
+	}
+
+	@Test
+	void rejectsUnknownKidAndHmacTokensInAsymmetricMode() throws Exception {
+		JwtUtil jwtUtil = jwtUtil(keyRing(SignatureAlgorithm.ES256));
+
+		JwtKeyRing otherKeyRing = keyRing(SignatureAlgorithm.ES256, keysDirectory.resolve("other"));
+		String otherSigner = jwtUtil(otherKeyRing).generateToken("buyer@example.com", "USER", 1L);
+		String hmacToken = Jwts.builder().setSubject("buyer@example.com")
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS512).compact();
+
+		assertThrows(JwtException.class, () -> jwtUtil.verify(otherSigner));
+		assertThrows(JwtException.class, () -> jwtUtil.verify(hmacToken));
+	}
+
+	@Test
+	void jwksRoundTripsPublicKeys() throws Exception {
+		for (SignatureAlgorithm algorithm : List.of(SignatureAlgorithm.RS256, SignatureAlgorithm.ES256)) {
+			JwtKeyRing keyRing = keyRing(algorithm);
+			Map<?, ?> jwk = (Map<?, ?>) ((List<?>) keyRing.jwks().get("keys")).get(0);
+			PublicKey parsed = fromJwk(jwk);
+			assertArrayEquals(keyRing.currentSigningKey().keyPair().getPublic().getEncoded(), parsed.getEncoded());
+		}
+	}
+
+	// Prints rates rather than asserting; run with -Pbenchmark
+	@Test
+	@Tag("benchmark")
+	void signAndVerifyThroughputPerAlgorithm() throws Exception {
+		for (SignatureAlgorithm algorithm : List.of(SignatureAlgorithm.HS512, SignatureAlgorithm.RS256, SignatureAlgorithm.ES256)) {
+			Key signingKey;
+			Key verificationKey;
+			if (algorithm.isHmac()) {
+				signingKey = verificationKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+			} else {
+				JwtKeyRing keyRing = keyRing(algorithm);
+				signingKey = keyRing.currentSigningKey().keyPair().getPrivate();
+				verificationKey = keyRing.currentSigningKey().keyPair().getPublic();
+			}
+			var parser = Jwts.parserBuilder().setSigningKey(verificationKey).build();
+
+			String[] tokens = new String[BENCHMARK_TOKENS];
+			for (int i = 0; i < BENCHMARK_TOKENS; i++) {
+				tokens[i] = sign(signingKey, algorithm, i);
+				parser.parseClaimsJws(tokens[i]);
+			}
+
+			long signStart = System.nanoTime();
+			for (int i = 0; i < BENCHMARK_TOKENS; i++) {
+				tokens[i] = sign(signingKey, algorithm, i);
+			}
+			long signNanos = System.nanoTime() - signStart;
+
+			long verifyStart = System.nanoTime();
+			for (String token : tokens) {
+				Claims claims = parser.parseClaimsJws(token).getBody();
+				assertEquals("buyer@example.com", claims.getSubject());
+			}
+			long verifyNanos = System.nanoTime() - verifyStart;
+
+			System.out.printf("%s: sign %.0f tokens/s, verify %.0f tokens/s%n", algorithm.getValue(),
+					BENCHMARK_TOKENS / (signNanos / 1e9), BENCHMARK_TOKENS / (verifyNanos / 1e9));
+		}
+	}
+
+	private static String sign(Key key, SignatureAlgorithm algorithm, int i) {
+		return Jwts.builder()
+				.setSubject("buyer@example.com")
+				.claim("userId", i)
+				.setExpiration(new Date(System.currentTimeMillis() + 3_600_000L))
+				.signWith(key, algorithm)
+				.compact();
+	}
+
+	// What a client of /.well-known/jwks.json does with each key
+	private static PublicKey fromJwk(Map<?, ?> jwk) throws Exception {
+		Base64.Decoder decoder = Base64.getUrlDecoder();
+		if ("RSA".equals(jwk.get("kty"))) {
+			BigInteger modulus = new BigInteger(1, decoder.decode((String) jwk.get("n")));
+			BigInteger exponent = new BigInteger(1, decoder.decode((String) jwk.get("e")));
+			return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent));
+		}
+		assertEquals("EC", jwk.get("kty"));
+		assertEquals("P-256", jwk.get("crv"));
+		AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+		parameters.init(new ECGenParameterSpec("secp256r1"));
+		ECPoint point = new ECPoint(
+				new BigInteger(1, decoder.decode((String) jwk.get("x"))),
+				new BigInteger(1, decoder.decode((String) jwk.get("y"))));
+		return KeyFactory.getInstance("EC")
+				.generatePublic(new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+	}
+
+	private JwtKeyRing keyRing(SignatureAlgorithm algorithm) throws Exception {
+		return keyRing(algorithm, keysDirectory.resolve(algorithm.getValue()));
+	}
+
+	private static JwtKeyRing keyRing(SignatureAlgorithm algorithm, Path directory) throws Exception {
+		JwtKeyRing keyRing = new JwtKeyRing();
+		ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+		ReflectionTestUtils.setField(keyRing, "tokenLifetimeMs", 3_600_000L);
+		ReflectionTestUtils.setField(keyRing, "keysDirectory", directory.toString());
+		ReflectionTestUtils.setField(keyRing, "rotationIntervalMs", 86_400_000L);
+		ReflectionTestUtils.setField(keyRing, "reloadIntervalMs", 60_000L);
+		ReflectionTestUtils.setField(keyRing, "minReloadIntervalMs", 0L);
+		invokeInit(keyRing, JwtKeyRing.class);
+		return keyRing;
+	}
+
+	private static JwtUtil jwtUtil(JwtKeyRing keyRing) throws Exception {
+		JwtUtil jwtUtil = new JwtUtil(keyRing);
+		ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", 3_600_000L);
+		ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", true);
+		ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", 1_000);
+		ReflectionTestUtils.setField(jwtUtil, "cacheMaxTtlSeconds", 3_600L);
+		invokeInit(jwtUtil, JwtUtil.class);
+		return jwtUtil;
+	}
+
+	private static void invokeInit(Object target, Class<?> type) throws Exception {
+		Method init = type.getDeclaredMethod("init");
+		init.setAccessible(true);
+		init.invoke(target);
+	}
+}
@@ -0,0 +1,66 @@
+package com.itech.itech_backend.util;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Plain unit tests for token revocation in both cache modes
+ */
+class JwtUtilTests {
+
+	private static final String SECRET = "a1b2c3d4e5f6g7h8i9j0k1l2m3n4o5p6q7r8s9t0u1v2w3x4y5z6a7b8c9d0e1f2";
+	private static final int CACHE_MAX_SIZE = 10;
+
+	@Test
+	void revokedTokenIsRejectedWithAndWithoutTheCache() throws Exception {
+		for (boolean cacheEnabled : List.of(true, false)) {
+			JwtUtil jwtUtil = jwtUtil(cacheEnabled);
+			String token = jwtUtil.generateToken("buyer@example.com", "USER", 1L);
+			assertEquals(1L, jwtUtil.verify(token).userId());
+
+			jwtUtil.revoke(token);
+
+			assertThrows(JwtException.class, () -> jwtUtil.verify(token), "cache enabled: " + cacheEnabled);
+		}
+	}
+
+	@Test
+	void revocationsOutlastTheCacheSize() throws Exception {
+		JwtUtil jwtUtil = jwtUtil(true);
+		List<String> tokens = new ArrayList<>();
+		for (int i = 0; i < CACHE_MAX_SIZE * 5; i++) {
+			String token = jwtUtil.generateToken("buyer" + i + "@example.com", "USER", (long) i);
+			jwtUtil.revoke(token);
+			tokens.add(token);
+		}
+		jwtUtil.purgeExpiredRevocations();
+
+		for (String token : tokens) {
+			assertThrows(JwtException.class, () -> jwtUtil.verify(token));
+		}
+	}
+
+	private static JwtUtil jwtUtil(boolean cacheEnabled) throws Exception {
+		JwtKeyRing keyRing = new JwtKeyRing();
+		ReflectionTestUtils.setField(keyRing, "algorithm", SignatureAlgorithm.HS512);
+		JwtUtil jwtUtil = new JwtUtil(keyRing);
+		ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+		ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", 3_600_000L);
+		ReflectionTestUtils.setField(jwtUtil, "cacheEnabled", cacheEnabled);
+		ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", CACHE_MAX_SIZE);
+		ReflectionTestUtils.setField(jwtUtil, "cacheMaxTtlSeconds", 3_600L);
+		Method init = JwtUtil.class.getDeclaredMethod("init");
+		init.setAccessible(true);
+		init.invoke(jwtUtil);
+		return jwtUtil;
+	}
+}
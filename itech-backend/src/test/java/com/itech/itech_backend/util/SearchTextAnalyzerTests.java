@@ -0,0 +1,38 @@
+package com.itech.itech_backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class SearchTextAnalyzerTests {
+
+	@Test
+	void inflectionsShareAStem() {
+		assertEquals("chair", SearchTextAnalyzer.stem("chair"));
+		assertEquals("chair", SearchTextAnalyzer.stem("chairs"));
+		assertEquals("chair", SearchTextAnalyzer.stem("chairing"));
+		assertEquals(SearchTextAnalyzer.stem("pony"), SearchTextAnalyzer.stem("ponies"));
+		assertEquals(SearchTextAnalyzer.stem("hop"), SearchTextAnalyzer.stem("hopping"));
+		assertEquals(SearchTextAnalyzer.stem("glass"), SearchTextAnalyzer.stem("glasses"));
+		assertEquals(SearchTextAnalyzer.stem("agree"), SearchTextAnalyzer.stem("agreed"));
+	}
+
+	@Test
+	void wordsThatOnlyLookInflectedAreKept() {
+		assertEquals("speed", SearchTextAnalyzer.stem("speed"));
+		assertEquals("string", SearchTextAnalyzer.stem("string"));
+		assertEquals("sing", SearchTextAnalyzer.stem("sing"));
+		assertEquals("bed", SearchTextAnalyzer.stem("bed"));
+		assertEquals("glass", SearchTextAnalyzer.stem("glass"));
+		assertNotEquals(SearchTextAnalyzer.stem("italy"), SearchTextAnalyzer.stem("it"));
+		assertNotEquals(SearchTextAnalyzer.stem("speed"), SearchTextAnalyzer.stem("spec"));
+		assertNotEquals(SearchTextAnalyzer.stem("string"), SearchTextAnalyzer.stem("strap"));
+	}
+
+	@Test
+	void numbersAndModelCodesAreUntouched() {
+		assertEquals("128gb", SearchTextAnalyzer.stem("128gb"));
+		assertEquals("x100s", SearchTextAnalyzer.stem("x100s"));
+	}
+}